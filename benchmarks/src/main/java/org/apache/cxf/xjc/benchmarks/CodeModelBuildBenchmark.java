@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.xjc.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@code codeModel.build} of the code generated for a synthetic schema with all
+ * plugins applied.  The files are serialized but not written, so the file system is not
+ * part of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeModelBuildBenchmark {
+    @Param({"10", "100", "500"})
+    public int types;
+
+    @Param({"6", "30"})
+    public int fields;
+
+    private GeneratedOutline outline;
+
+    @Setup(Level.Trial)
+    public void generateOutline() throws Exception {
+        outline = new GeneratedOutline(SyntheticSchema.createFile(types, fields), "-Xdv", "-Xts",
+                                       "-Xproperty-listener", "-Xbgi", "-Xbug986", "-Xjavadoc",
+                                       "-Xwsdlextension");
+        outline.runPlugins();
+    }
+
+    @Benchmark
+    public void build(final Blackhole blackhole) throws IOException {
+        outline.outline.getCodeModel().build(new CodeWriter() {
+            @Override
+            public OutputStream openBinary(JPackage pkg, String fileName) {
+                return new OutputStream() {
+                    @Override
+                    public void write(int b) {
+                        blackhole.consume(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        blackhole.consume(len);
+                    }
+                };
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.xjc.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sun.codemodel.JCodeModel;
+import com.sun.tools.xjc.BadCommandLineException;
+import com.sun.tools.xjc.ConsoleErrorReporter;
+import com.sun.tools.xjc.ErrorReceiver;
+import com.sun.tools.xjc.Language;
+import com.sun.tools.xjc.ModelLoader;
+import com.sun.tools.xjc.Options;
+import com.sun.tools.xjc.Plugin;
+import com.sun.tools.xjc.model.Model;
+import com.sun.tools.xjc.outline.Outline;
+
+/**
+ * The outline of a synthetic schema, generated with the given XJC arguments but without
+ * running the plugins they activate, so a benchmark can run them on their own.  Plugins
+ * change the code model, so every run needs an outline of its own.
+ */
+public final class GeneratedOutline {
+    /**
+     * Some plugins log every method they add at INFO level, the benchmarks would measure
+     * the console.
+     */
+    private static final Logger PLUGIN_LOGGER = Logger.getLogger("org.apache.cxf.xjc");
+    static {
+        PLUGIN_LOGGER.setLevel(Level.WARNING);
+    }
+
+    public final Options options = new Options();
+    public final ErrorReceiver errorReceiver = new ConsoleErrorReporter();
+    public final List<Plugin> plugins;
+    public final Outline outline;
+
+    public GeneratedOutline(File schema, String... args) throws BadCommandLineException {
+        options.setSchemaLanguage(Language.XMLSCHEMA);
+        options.addGrammar(schema);
+        options.parseArguments(args);
+
+        Model model = ModelLoader.load(options, new JCodeModel(), errorReceiver);
+        if (model == null) {
+            throw new IllegalStateException("Could not load the synthetic schema");
+        }
+        plugins = new ArrayList<>(options.activePlugins);
+        options.activePlugins.clear();
+        outline = model.generateCode(options, errorReceiver);
+        options.activePlugins.addAll(plugins);
+        if (outline == null) {
+            throw new IllegalStateException("Could not generate code for the synthetic schema");
+        }
+    }
+
+    /**
+     * Runs the plugins activated by the arguments on the outline.
+     */
+    public boolean runPlugins() throws Exception {
+        boolean result = true;
+        for (Plugin plugin : plugins) {
+            result &= plugin.run(outline, options, errorReceiver);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.xjc.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code run()} of a plugin on the outline of a synthetic schema.  The plugins
+ * change the code model, so a fresh outline is generated before every invocation; that
+ * is not part of the measurement.  Run a single plugin with e.g.
+ * {@code java -jar benchmarks.jar PluginRunBenchmark -p plugin=-Xdv}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+public class PluginRunBenchmark {
+    /**
+     * The XJC arguments activating the plugin, separated by spaces.
+     */
+    @Param({"-Xdv", "-Xts", "-Xproperty-listener", "-Xbgi", "-Xbug986", "-Xjavadoc", "-Xwsdlextension"})
+    public String plugin;
+
+    @Param({"10", "100", "500"})
+    public int types;
+
+    @Param({"6", "30"})
+    public int fields;
+
+    private File schema;
+    private GeneratedOutline outline;
+
+    @Setup(Level.Trial)
+    public void createSchema() throws IOException {
+        schema = SyntheticSchema.createFile(types, fields);
+    }
+
+    @Setup(Level.Invocation)
+    public void generateOutline() throws Exception {
+        outline = new GeneratedOutline(schema, plugin.split(" "));
+    }
+
+    @Benchmark
+    public boolean run() throws Exception {
+        return outline.runPlugins();
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.xjc.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Creates schemas of a given size for the benchmarks.  Every complex type has elements of
+ * all the kinds the plugins treat specially: defaults of simple types and enums, booleans,
+ * references to other types, lists and documentation, plus an anySimpleType attribute.
+ */
+public final class SyntheticSchema {
+    public static final String NAMESPACE = "urn:cxf-xjc:benchmark";
+
+    private static final int KINDS = 6;
+
+    private SyntheticSchema() {
+    }
+
+    /**
+     * Creates a schema with the given number of complex types, each with the given number
+     * of elements, and a global element for every type.
+     */
+    public static String create(int types, int fields) {
+        StringBuilder b = new StringBuilder(types * fields * 200);
+        b.append("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" xmlns:tns=\"")
+            .append(NAMESPACE).append("\" targetNamespace=\"").append(NAMESPACE)
+            .append("\" elementFormDefault=\"qualified\">\n");
+        b.append("  <xs:simpleType name=\"Color\">\n")
+            .append("    <xs:restriction base=\"xs:string\">\n")
+            .append("      <xs:enumeration value=\"RED\"/>\n")
+            .append("      <xs:enumeration value=\"GREEN\"/>\n")
+            .append("      <xs:enumeration value=\"BLUE\"/>\n")
+            .append("    </xs:restriction>\n")
+            .append("  </xs:simpleType>\n");
+        for (int t = 0; t < types; t++) {
+            b.append("  <xs:complexType name=\"Type").append(t).append("\">\n");
+            documentation(b, "    ", "Synthetic type " + t + ".");
+            b.append("    <xs:sequence>\n");
+            for (int f = 0; f < fields; f++) {
+                element(b, f, (t + 1) % types);
+            }
+            b.append("    </xs:sequence>\n")
+                .append("    <xs:attribute name=\"id\" type=\"xs:anySimpleType\"/>\n")
+                .append("    <xs:attribute name=\"enabled\" type=\"xs:boolean\" default=\"true\"/>\n")
+                .append("  </xs:complexType>\n")
+                .append("  <xs:element name=\"type").append(t).append("\" type=\"tns:Type").append(t)
+                .append("\"/>\n");
+        }
+        return b.append("</xs:schema>\n").toString();
+    }
+
+    /**
+     * Writes the schema created by {@link #create(int, int)} to a temporary file, which is
+     * deleted when the JVM exits.
+     */
+    public static File createFile(int types, int fields) throws IOException {
+        File file = File.createTempFile("synthetic-" + types + "-" + fields + "-", ".xsd");
+        file.deleteOnExit();
+        Files.write(file.toPath(), create(types, fields).getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static void element(StringBuilder b, int f, int next) {
+        b.append("      <xs:element minOccurs=\"0\" name=\"");
+        switch (f % KINDS) {
+        case 0:
+            b.append("text").append(f).append("\" type=\"xs:string\" default=\"value").append(f).append('"');
+            break;
+        case 1:
+            b.append("number").append(f).append("\" type=\"xs:int\" default=\"").append(f).append('"');
+            break;
+        case 2:
+            b.append("flag").append(f).append("\" type=\"xs:boolean\" default=\"true\"");
+            break;
+        case 3:
+            b.append("color").append(f).append("\" type=\"tns:Color\" default=\"GREEN\"");
+            break;
+        case 4:
+            b.append("next").append(f).append("\" type=\"tns:Type").append(next).append('"');
+            break;
+        default:
+            b.append("item").append(f).append("\" type=\"xs:string\" maxOccurs=\"unbounded\"");
+            break;
+        }
+        b.append(">\n");
+        documentation(b, "        ", "Synthetic field " + f + ".");
+        b.append("      </xs:element>\n");
+    }
+
+    private static void documentation(StringBuilder b, String indent, String text) {
+        b.append(indent).append("<xs:annotation><xs:documentation>").append(text)
+            .append("</xs:documentation></xs:annotation>\n");
+    }
+}
@@ -19,20 +19,61 @@
 
 package org.apache.cxf.maven_plugin;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
 import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
@@ -63,6 +104,16 @@ import org.sonatype.plexus.build.incremental.BuildContext;
  * CXF XSD To Java Tool
  */
 public abstract class AbstractXSDToJavaMojo extends AbstractMojo {
+    /**
+     * Suffix of the manifests listing the files generated for an option, next to its marker.
+     */
+    static final String MANIFEST_SUFFIX = ".FILES";
+
+    /**
+     * How many schemas and plugins the timing summary names.
+     */
+    private static final int SLOWEST = 5;
+
     @Component
     protected MavenProject project;
     
@@ -132,6 +183,87 @@ public abstract class AbstractXSDToJavaMojo extends AbstractMojo {
     @Parameter(property = "plugin.artifacts", readonly = true, required = true)
     private List<Artifact> pluginArtifacts;    
 
+    /**
+     * The number of generation runs to execute concurrently.  With more than one thread every
+     * run writes to its own staging directory; the results, messages and markers are merged in
+     * the order the xsdOptions are declared.
+     */
+    @Parameter(property = "cxf.xjc.threads", defaultValue = "1")
+    private int threads;
+
+    /**
+     * Compiles xsdOptions whose arguments only differ in the schemas into a single model, so
+     * schemas they share are only parsed once.  If one of the options needs to be regenerated,
+     * all the options of its group are.
+     */
+    @Parameter(property = "cxf.xjc.batch", defaultValue = "false")
+    private boolean batch;
+
+    /**
+     * Sends the generation runs to a long running forked runner instead of starting a new
+     * JVM for every run.  The daemon is shared by all modules and builds using the same plugin
+     * dependencies and Java settings, the project classpath is passed with every run.  It
+     * stops after being idle for {@link #daemonIdleTimeout} seconds.  Only used when the runs
+     * are forked.
+     */
+    @Parameter(property = "cxf.xjc.daemon", defaultValue = "false")
+    private boolean daemon;
+
+    @Parameter(property = "cxf.xjc.daemonIdleTimeout", defaultValue = "600")
+    private int daemonIdleTimeout;
+
+    /**
+     * Directory holding the port files, launcher jars and logs of the daemons.  It has to be
+     * owned by the current user and must not be writable by others, as the daemons run the
+     * jars found in it and trust the port files.
+     */
+    @Parameter(property = "cxf.xjc.daemonDirectory", defaultValue = "${user.home}/.m2/cxf-xjc-daemons")
+    private File daemonDirectory;
+
+    /**
+     * Runs XJC in the Maven JVM in a class loader that only sees the JDK and the plugin
+     * dependencies, instead of forking.  The class loader is shared by all modules of the
+     * build.  On Java 9 and later runs are forked unless this is set.
+     */
+    @Parameter(property = "cxf.xjc.isolated", defaultValue = "false")
+    private boolean isolated;
+
+    /**
+     * Restores the sources of a run from a cache shared by all builds on the machine instead
+     * of running XJC, if a run with the same arguments already generated them from schemas
+     * with the same content.  Locations below the project and the local repository are
+     * stored relative to them, so the entries can be used by other checkouts.
+     */
+    @Parameter(property = "cxf.xjc.cache", defaultValue = "false")
+    private boolean cache;
+
+    @Parameter(property = "cxf.xjc.cacheDirectory", defaultValue = "${user.home}/.m2/cxf-xjc-cache")
+    private File cacheDirectory;
+
+    /**
+     * Keeps the schemas loaded over HTTP in a local cache.  Cached schemas are revalidated with
+     * a conditional GET once per build; when Maven runs offline only the cached copies are used.
+     */
+    @Parameter(property = "cxf.xjc.schemaCache", defaultValue = "false")
+    private boolean schemaCache;
+
+    @Parameter(property = "cxf.xjc.schemaCacheDirectory", defaultValue = "${user.home}/.m2/cxf-xjc-schemas")
+    private File schemaCacheDirectory;
+
+    @Parameter(property = "cxf.xjc.offline", defaultValue = "${settings.offline}")
+    private boolean offline;
+
+    private List<File> extensionFiles;
+    private GeneratedSourcesCache sourcesCache;
+    private HttpSchemaCache httpSchemaCache;
+    private String launcherClassPath;
+    private String pluginClassPath;
+    private String pluginKey;
+    private String daemonKey;
+    private boolean daemonDirectoryChecked;
+    private String toolsKey;
+    private String classPathKey;
+
     abstract String getOutputDir();
     
     
@@ -169,136 +301,789 @@ public abstract class AbstractXSDToJavaMojo extends AbstractMojo {
                     uri = url.toURI();
                 }
             }
-            return uri;
-        } catch (URISyntaxException e1) {
-            throw new MojoExecutionException("Could not map " + s, e1);
+            return uri;
+        } catch (URISyntaxException e1) {
+            throw new MojoExecutionException("Could not map " + s, e1);
+        }
+    }
+    public void execute() throws MojoExecutionException {
+        if (isJava9Compatible() && !isolated) {
+            fork = true;
+            additionalJvmArgs =  
+                     "--add-exports=jdk.xml.dom/org.w3c.dom.html=ALL-UNNAMED "
+                    + "--add-exports=java.xml/com.sun.org.apache.xerces.internal.impl.xs=ALL-UNNAMED "
+                    + "--add-opens java.base/java.security=ALL-UNNAMED "
+                    + "--add-opens java.base/java.net=ALL-UNNAMED "
+                    + "--add-opens java.base/java.lang=ALL-UNNAMED "
+                    + "--add-opens java.base/java.util=ALL-UNNAMED "
+                    + "--add-opens java.base/java.util.concurrent=ALL-UNNAMED " 
+                    + (additionalJvmArgs == null ? "" : additionalJvmArgs); 
+        }
+        String outputDir = getOutputDir();
+        
+        File outputDirFile = new File(outputDir);
+        outputDirFile.mkdirs();
+        markerDirectory.mkdirs();
+
+        if (xsdOptions == null) {
+            throw new MojoExecutionException("Must specify xsdOptions");           
+        }
+    
+        List<GenerationTask> candidates = new ArrayList<>();
+        // the up-to-date checks of all options share the jars they open
+        try (SchemaFileSystems fileSystems = new SchemaFileSystems()) {
+            SchemaFileSystems.CURRENT.set(fileSystems);
+            for (int x = 0; x < xsdOptions.length; x++) {
+                GenerationTask task = createTask(xsdOptions[x]);
+                task.stale = !hasNoDelta(task) && isStale(task);
+                candidates.add(task);
+            }
+            getLog().debug("Up-to-date check read " + fileSystems);
+        } finally {
+            SchemaFileSystems.CURRENT.remove();
+        }
+        logSchemaCacheWarnings();
+
+        List<GenerationTask> tasks = new ArrayList<>();
+        if (batch) {
+            tasks.addAll(batch(candidates));
+        } else {
+            for (GenerationTask task : candidates) {
+                if (task.stale) {
+                    tasks.add(task);
+                }
+            }
+        }
+        for (GenerationTask task : tasks) {
+            if (task.batched.isEmpty()) {
+                invalidate(task);
+            } else {
+                for (GenerationTask member : task.batched) {
+                    invalidate(member);
+                }
+            }
+        }
+
+        if (cache) {
+            tasks = restoreFromCache(tasks, outputDirFile);
+            logSchemaCacheWarnings();
+        }
+
+        if (!tasks.isEmpty()) {
+            long start = System.nanoTime();
+            runTasks(tasks, outputDir, outputDirFile);
+            logTimings(tasks, (System.nanoTime() - start) / 1000000L);
+        }
+        pruneOrphans(candidates, outputDirFile);
+    }
+
+    /**
+     * Logs where the time of this execution went: a summary with the totals of the phases
+     * and, at debug level, the slowest schemas and plugins.  The phases of parallel tasks
+     * overlap, so they may add up to more than the elapsed time.
+     */
+    private void logTimings(List<GenerationTask> tasks, long elapsed) {
+        long parse = 0;
+        long generate = 0;
+        long write = 0;
+        Map<String, Long> plugins = new HashMap<>();
+        for (GenerationTask task : tasks) {
+            parse += task.parseTime;
+            generate += task.generateTime;
+            write += task.writeTime;
+            for (Map.Entry<String, Long> plugin : task.pluginTimes.entrySet()) {
+                plugins.merge(plugin.getKey(), plugin.getValue(), Long::sum);
+            }
+        }
+        getLog().info("Generated code for " + tasks.size() + " schemas in " + elapsed + " ms (parsing "
+                      + parse + " ms, code generation " + generate + " ms, writing " + write + " ms)");
+        if (!getLog().isDebugEnabled()) {
+            return;
+        }
+
+        List<GenerationTask> slowest = new ArrayList<>(tasks);
+        slowest.sort(Comparator.comparingLong(AbstractXSDToJavaMojo::getTotalTime).reversed());
+        StringBuilder b = new StringBuilder("Slowest schemas: ");
+        for (GenerationTask task : slowest.subList(0, Math.min(SLOWEST, slowest.size()))) {
+            b.append(task.xsdFile).append(' ').append(getTotalTime(task)).append(" ms, ");
+        }
+        b.setLength(b.length() - 2);
+        getLog().debug(b.toString());
+
+        if (!plugins.isEmpty()) {
+            List<Map.Entry<String, Long>> slowestPlugins = new ArrayList<>(plugins.entrySet());
+            slowestPlugins.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+            b = new StringBuilder("Slowest plugins: ");
+            for (Map.Entry<String, Long> plugin : slowestPlugins.subList(0, Math.min(SLOWEST, plugins.size()))) {
+                b.append(plugin.getKey()).append(' ').append(plugin.getValue()).append(" ms, ");
+            }
+            b.setLength(b.length() - 2);
+            getLog().debug(b.toString());
+        }
+    }
+
+    private static long getTotalTime(GenerationTask task) {
+        return task.parseTime + task.generateTime + task.writeTime;
+    }
+
+    private void runTasks(List<GenerationTask> tasks, String outputDir, File outputDirFile)
+        throws MojoExecutionException {
+        if (fork && !daemon) {
+            runForkedJobs(tasks, outputDir, outputDirFile);
+        } else if ((threads > 1 && tasks.size() > 1) || cache) {
+            runParallel(tasks, outputDirFile);
+        } else {
+            for (GenerationTask task : tasks) {
+                int i;
+                try {
+                    i = runTask(task, outputDir, buildContext);
+                } catch (Exception e) {
+                    throw new MojoExecutionException(e.getMessage(), e);
+                }
+                completeTask(task, i, outputDirFile);
+            }
+        }
+    }
+
+    /**
+     * Deletes the files the previous run of a completed task generated but this run did not,
+     * e.g. the classes of removed or renamed types, and stores the manifest of the files this
+     * run generated next to the marker.  Files listed in the manifest of any other option
+     * are kept, as options may share generated classes.
+     */
+    private void pruneOrphans(List<GenerationTask> candidates, File outputDirFile)
+        throws MojoExecutionException {
+        Set<File> completedManifests = new HashSet<>();
+        Set<String> generated = new HashSet<>();
+        for (GenerationTask task : candidates) {
+            if (task.completed) {
+                completedManifests.add(getManifestFile(task));
+                generated.addAll(task.generatedFiles);
+            }
+        }
+        if (completedManifests.isEmpty()) {
+            return;
+        }
+        File[] manifests = markerDirectory.listFiles((dir, name) -> name.endsWith(MANIFEST_SUFFIX));
+        try {
+            for (File manifest : manifests == null ? new File[0] : manifests) {
+                if (!completedManifests.contains(manifest)) {
+                    generated.addAll(Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8));
+                }
+            }
+            for (GenerationTask task : candidates) {
+                if (!task.completed) {
+                    continue;
+                }
+                File manifest = getManifestFile(task);
+                int deleted = 0;
+                if (manifest.isFile()) {
+                    for (String path : Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) {
+                        if (!generated.contains(path) && deleteGenerated(outputDirFile, path)) {
+                            deleted++;
+                        }
+                    }
+                }
+                if (deleted > 0) {
+                    getLog().info("Deleted " + deleted + " files no longer generated for " + task.xsdFile);
+                }
+                Files.write(manifest.toPath(), task.generatedFiles, StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not delete files no longer generated", e);
+        }
+    }
+
+    private static File getManifestFile(GenerationTask task) {
+        String name = task.doneFile.getName();
+        return new File(task.doneFile.getParentFile(),
+                        name.substring(0, name.length() - ".DONE".length()) + MANIFEST_SUFFIX);
+    }
+
+    /**
+     * Deletes a generated file and the directories that become empty, up to the output
+     * directory.
+     */
+    private boolean deleteGenerated(File outputDirFile, String path) throws IOException {
+        Path root = outputDirFile.toPath();
+        Path file = root.resolve(path).normalize();
+        if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+            return false;
+        }
+        file.toFile().setWritable(true);
+        Files.delete(file);
+        buildContext.refresh(file.toFile());
+        Path dir = file.getParent();
+        while (!dir.equals(root) && dir.startsWith(root)) {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                if (entries.iterator().hasNext()) {
+                    break;
+                }
+            }
+            Files.delete(dir);
+            dir = dir.getParent();
+        }
+        return true;
+    }
+
+    /**
+     * Runs the tasks on a pool of {@link #threads} threads.  Every task generates into its
+     * own staging directory and records its messages.  Once all tasks are finished the
+     * results are merged into the output directory in declaration order, so the outcome
+     * does not depend on which task finished first.
+     */
+    private void runParallel(List<GenerationTask> tasks, File outputDirFile) throws MojoExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+        try {
+            List<Future<Integer>> results = new ArrayList<>(tasks.size());
+            for (int x = 0; x < tasks.size(); x++) {
+                final GenerationTask task = tasks.get(x);
+                task.stagingDir = new File(markerDirectory, "staging-" + x);
+                deleteDir(task.stagingDir);
+                task.stagingDir.mkdirs();
+                task.context = new DeferredBuildContext(buildContext);
+                results.add(executor.submit(() -> runTask(task, task.stagingDir.getAbsolutePath(), task.context)));
+            }
+            for (int x = 0; x < tasks.size(); x++) {
+                GenerationTask task = tasks.get(x);
+                int i;
+                try {
+                    i = results.get(x).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException(e.getMessage(), e);
+                } catch (ExecutionException e) {
+                    task.context.replay();
+                    throw new MojoExecutionException(e.getCause().getMessage(), e.getCause());
+                }
+                task.context.replay();
+                try {
+                    storeInCache(task, i);
+                    task.unchangedCount = mergeDir(task.stagingDir, outputDirFile);
+                    task.outputRefreshed = buildContext.isIncremental();
+                } catch (IOException e) {
+                    throw new MojoExecutionException("Could not copy generated sources from "
+                                                     + task.stagingDir, e);
+                }
+                completeTask(task, i, outputDirFile);
+            }
+        } finally {
+            executor.shutdownNow();
+            for (GenerationTask task : tasks) {
+                if (task.stagingDir != null) {
+                    deleteDir(task.stagingDir);
+                }
+            }
+        }
+    }
+
+    /**
+     * Completes the tasks whose sources can be restored from the cache and returns the
+     * remaining ones.  Batched tasks depend on the other members of their group and are
+     * always run.
+     */
+    private List<GenerationTask> restoreFromCache(List<GenerationTask> tasks, File outputDirFile)
+        throws MojoExecutionException {
+        List<GenerationTask> remaining = new ArrayList<>(tasks.size());
+        for (GenerationTask task : tasks) {
+            if (!task.batched.isEmpty()) {
+                remaining.add(task);
+                continue;
+            }
+            List<String> loaded;
+            try {
+                task.cacheKey = getCacheKey(task);
+                loaded = getSourcesCache().restore(task.cacheKey, outputDirFile, task.generatedFiles);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not restore generated sources for "
+                                                 + task.xsdFile + " from " + cacheDirectory, e);
+            }
+            if (loaded == null) {
+                remaining.add(task);
+            } else {
+                getLog().info("Restored generated sources for " + task.xsdFile + " from " + cacheDirectory);
+                task.loadedSchemas.addAll(loaded);
+                completeTask(task, 0, outputDirFile);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Stores the sources a successful task generated into its staging directory in the cache.
+     */
+    private void storeInCache(GenerationTask task, int i) throws IOException {
+        if (task.cacheKey != null && i == 0) {
+            getSourcesCache().store(task.cacheKey, task.stagingDir, task.loadedSchemas);
+        }
+    }
+
+    private synchronized HttpSchemaCache getSchemaCache() {
+        if (schemaCache && httpSchemaCache == null) {
+            httpSchemaCache = new HttpSchemaCache(schemaCacheDirectory, offline);
+        }
+        return httpSchemaCache;
+    }
+
+    private synchronized void logSchemaCacheWarnings() {
+        if (httpSchemaCache != null) {
+            for (String warning : httpSchemaCache.takeWarnings()) {
+                getLog().warn(warning);
+            }
+        }
+    }
+
+    private synchronized GeneratedSourcesCache getSourcesCache() {
+        if (sourcesCache == null) {
+            sourcesCache = new GeneratedSourcesCache(cacheDirectory, getSchemaCache());
+            sourcesCache.addRoot("${basedir}", project.getBasedir());
+            sourcesCache.addRoot("${localRepository}", repoSession.getLocalRepository().getBasedir());
+        }
+        return sourcesCache;
+    }
+
+    /**
+     * The key of a task in the cache covers everything known before the run: the plugin
+     * versions, the project classpath, the arguments and the content of the schemas, binding
+     * files, catalog, dependencies and files named in the extension arguments, e.g. episodes.
+     * The documents the schemas import are checked by the entries.
+     */
+    private String getCacheKey(GenerationTask task) throws MojoExecutionException {
+        GeneratedSourcesCache sources = getSourcesCache();
+        XsdOption option = task.option;
+        StringBuilder b = new StringBuilder(4000);
+        b.append(getToolsKey());
+        b.append(getClassPathKey());
+        try {
+            for (String arg : getFingerprintArguments(option)) {
+                b.append(sources.normalize(arg)).append('\n');
+            }
+        } catch (MalformedURLException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        List<String> locations = new ArrayList<>();
+        for (String xsdFile : task.xsdFiles) {
+            locations.add(mapLocation(xsdFile).toString());
+        }
+        if (option.getBindingFiles() != null) {
+            for (String bf : option.getBindingFiles()) {
+                locations.add(mapLocation(bf).toString());
+            }
+        }
+        if (option.getCatalog() != null) {
+            locations.add(mapLocation(option.getCatalog()).toString());
+        }
+        if (option.getDependencies() != null) {
+            for (File file : option.getDependencies()) {
+                locations.add(file.getAbsoluteFile().toURI().toString());
+            }
+        }
+        if (option.getExtensionArgs() != null) {
+            for (String arg : option.getExtensionArgs()) {
+                File file = new File(arg);
+                if (!file.isAbsolute()) {
+                    file = new File(project.getBasedir(), arg);
+                }
+                if (file.isFile()) {
+                    locations.add(file.getAbsoluteFile().toURI().toString());
+                }
+            }
+        }
+        for (String location : locations) {
+            b.append(SchemaFingerprint.digest(location, getSchemaCache())).append(' ')
+                .append(sources.normalize(location)).append('\n');
+        }
+        return hash(b.toString());
+    }
+
+    /**
+     * The part of the cache keys describing the project classpath, which XJC searches for
+     * episodes and the classes the bindings refer to.  Released artifacts in the local
+     * repository do not change, so their path, which holds their coordinates, is enough.
+     * Other jars are identified by their content and directories, e.g. the classes of other
+     * modules of the reactor, by the number and newest timestamp of their files.
+     */
+    private synchronized String getClassPathKey() throws MojoExecutionException {
+        if (classPathKey == null) {
+            GeneratedSourcesCache sources = getSourcesCache();
+            Path localRepository = repoSession.getLocalRepository().getBasedir().getAbsoluteFile().toPath();
+            StringBuilder b = new StringBuilder(4000);
+            try {
+                for (String element : getClasspathElements()) {
+                    File file = new File(element).getAbsoluteFile();
+                    String location = file.toURI().toString();
+                    b.append(sources.normalize(location));
+                    if (file.isFile()
+                        && (!file.toPath().startsWith(localRepository) || element.contains("-SNAPSHOT"))) {
+                        b.append(' ').append(SchemaFingerprint.digest(location));
+                    } else if (file.isDirectory()) {
+                        b.append(describeDirectory(file));
+                    }
+                    b.append('\n');
+                }
+            } catch (DependencyResolutionRequiredException | IOException e) {
+                throw new MojoExecutionException(e.getMessage(), e);
+            }
+            classPathKey = b.toString();
+        }
+        return classPathKey;
+    }
+
+    /**
+     * The part of the cache keys describing the code generating the sources: the plugin
+     * artifacts and the extension jars.  Snapshots and extensions are identified by their
+     * content, so that the sources of a rebuilt plugin are not taken for the ones of the
+     * old build.  Released artifacts do not change, so their id is enough.
+     */
+    private synchronized String getToolsKey() throws MojoExecutionException {
+        if (toolsKey == null) {
+            StringBuilder b = new StringBuilder(4000);
+            b.append(XSDToJavaRunner.class.getPackage().getImplementationVersion()).append('\n');
+            for (Artifact a : pluginArtifacts) {
+                b.append(a.getId());
+                if (a.isSnapshot() && a.getFile() != null) {
+                    b.append(' ').append(SchemaFingerprint.digest(a.getFile().toURI().toString()));
+                }
+                b.append('\n');
+            }
+            List<String> extensionDigests = new ArrayList<>();
+            for (File file : getExtensionFiles()) {
+                extensionDigests.add(SchemaFingerprint.digest(file.getAbsoluteFile().toURI().toString()));
+            }
+            Collections.sort(extensionDigests);
+            for (String digest : extensionDigests) {
+                b.append(digest).append('\n');
+            }
+            toolsKey = b.toString();
+        }
+        return toolsKey;
+    }
+
+    /**
+     * Groups the tasks by their arguments without the schemas.  A group with more than one
+     * task becomes a single task compiling the schemas of all of them, which is needed as
+     * soon as one of its members is stale.
+     */
+    private List<GenerationTask> batch(List<GenerationTask> candidates)
+        throws MojoExecutionException {
+        Map<List<String>, List<GenerationTask>> groups = new LinkedHashMap<>();
+        for (GenerationTask task : candidates) {
+            List<String> key;
+            try {
+                key = getOptionArguments(task.option);
+            } catch (MalformedURLException e) {
+                throw new MojoExecutionException(e.getMessage(), e);
+            }
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(task);
+        }
+        List<GenerationTask> tasks = new ArrayList<>();
+        for (List<GenerationTask> group : groups.values()) {
+            boolean stale = false;
+            Set<String> xsdFiles = new LinkedHashSet<>();
+            for (GenerationTask task : group) {
+                stale |= task.stale;
+                xsdFiles.addAll(Arrays.asList(task.xsdFiles));
+            }
+            if (!stale) {
+                continue;
+            }
+            if (group.size() == 1) {
+                tasks.add(group.get(0));
+            } else {
+                GenerationTask first = group.get(0);
+                GenerationTask task = new GenerationTask(first.option, first.xsdFile,
+                                                         xsdFiles.toArray(new String[0]), null);
+                task.batched.addAll(group);
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Prepares a task to run: removes the messages of its previous run and deletes its
+     * marker, so that a run that fails or is interrupted is not taken as up to date by the
+     * next build, in particular by the no-delta check of incremental builds.
+     */
+    private void invalidate(GenerationTask task) throws MojoExecutionException {
+        removeMessages(task);
+        if (task.doneFile.exists() && !task.doneFile.delete()) {
+            throw new MojoExecutionException("Could not delete " + task.doneFile);
+        }
+    }
+
+    private void removeMessages(GenerationTask task) throws MojoExecutionException {
+        File[] files = task.option.getDependencies();
+        if (files != null) {
+            for (File file : files) {
+                if (file.exists()) {
+                    buildContext.removeMessages(file);
+                }
+            }
+        }
+        for (String xsdFile : task.xsdFiles) {
+            removeMessages(xsdFile);
+        }
+        if (task.option.getBindingFiles() != null) {
+            for (String bf : task.option.getBindingFiles()) {
+                removeMessages(bf);
+            }
+        }
+    }
+
+    /**
+     * Runs XJC in an isolated class loader in the Maven JVM, so it stays warm between
+     * executions, unless the runs are configured to be forked.
+     */
+    void useIsolatedUnlessForked() {
+        if (!fork) {
+            isolated = true;
+        }
+    }
+
+    private GenerationTask createTask(XsdOption option) throws MojoExecutionException {
+        // all files of an xsdDir are compiled as one model by a single run
+        String source = option.getXsdDir() != null && !option.getXsdDir().isEmpty()
+            ? option.getXsdDir() : option.getXsd();
+        String[] xsdFiles = getXsdFiles(option.getXsdDir(), option.getXsd());
+        URI xsdURI = mapLocation(source);
+        URI basedir = project.getBasedir().toURI();
+
+        String doneFileName = xsdURI.toString();
+        if (doneFileName.startsWith(basedir.toString())) {
+            doneFileName = doneFileName.substring(basedir.toString().length());
+        }
+
+        doneFileName = doneFileName.replace('?', '_')
+            .replace('&', '_').replace('/', '_').replace('\\', '_')
+            .replace(':', '_').replace('!', '_');
+
+        // If URL to WSDL, replace ? and & since they're invalid chars for file names
+        File doneFile =
+            new File(markerDirectory, "." + doneFileName + ".DONE");
+
+        return new GenerationTask(option, source, xsdFiles, doneFile);
+    }
+
+    /**
+     * The local files and directories the generation of the option depends on: the xsd or
+     * xsdDir, everything the last run loaded, the binding files, the catalog and the
+     * dependencies.
+     */
+    Set<Path> getWatchedPaths(XsdOption option) throws MojoExecutionException {
+        GenerationTask task = createTask(option);
+        Set<Path> paths = new LinkedHashSet<>();
+        for (String location : getInputLocations(task)) {
+            if (location.startsWith("file:")) {
+                paths.add(Paths.get(URI.create(location)));
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * The locations of the inputs of the task: the xsd or xsdDir, everything the last run
+     * loaded, the binding files, the catalog and the dependencies.
+     */
+    private List<String> getInputLocations(GenerationTask task) throws MojoExecutionException {
+        XsdOption option = task.option;
+        List<String> locations = new ArrayList<>();
+        locations.add(mapLocation(task.xsdFile).toString());
+        for (String xsdFile : task.xsdFiles) {
+            locations.add(mapLocation(xsdFile).toString());
+        }
+        if (option.getBindingFiles() != null) {
+            for (String bf : option.getBindingFiles()) {
+                locations.add(mapLocation(bf).toString());
+            }
+        }
+        if (option.getCatalog() != null) {
+            locations.add(mapLocation(option.getCatalog()).toString());
+        }
+        SchemaFingerprint stored = SchemaFingerprint.read(task.doneFile);
+        if (stored != null) {
+            locations.addAll(stored.getLocations());
+        }
+        if (option.getDependencies() != null) {
+            for (File file : option.getDependencies()) {
+                locations.add(file.getAbsoluteFile().toURI().toString());
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * In incremental builds, e.g. in the IDE, a task is up to date if the build context reports
+     * no delta for any of its inputs and the arguments are the ones of the last run, which
+     * saves reading and hashing the inputs.  The build context only tracks the files of the
+     * project, so tasks with other inputs are checked as usual.
+     */
+    private boolean hasNoDelta(GenerationTask task) throws MojoExecutionException {
+        if (!buildContext.isIncremental() || !task.doneFile.isFile()) {
+            return false;
+        }
+        SchemaFingerprint stored = SchemaFingerprint.read(task.doneFile);
+        try {
+            if (stored == null || !stored.hasArguments(getFingerprintArguments(task.option))) {
+                return false;
+            }
+        } catch (MalformedURLException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        Path basedir = project.getBasedir().getAbsoluteFile().toPath();
+        for (String location : getInputLocations(task)) {
+            if (!location.startsWith("file:")) {
+                return false;
+            }
+            Path path = Paths.get(URI.create(location));
+            if (!path.startsWith(basedir) || buildContext.hasDelta(path.toFile())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A task needs to run unless its marker holds a fingerprint that still matches the
+     * content of all the documents the previous run loaded and the current arguments.
+     */
+    private boolean isStale(GenerationTask task) throws MojoExecutionException {
+        SchemaFingerprint stored = SchemaFingerprint.read(task.doneFile);
+        if (stored == null) {
+            return true;
+        }
+        return !stored.equals(createFingerprint(task, stored.getLocations()));
+    }
+
+    private SchemaFingerprint createFingerprint(GenerationTask task, Collection<String> loaded)
+        throws MojoExecutionException {
+        XsdOption option = task.option;
+        SchemaFingerprint fingerprint = new SchemaFingerprint(getSchemaCache());
+        try {
+            fingerprint.addArguments(getFingerprintArguments(option));
+        } catch (MalformedURLException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        for (String xsdFile : task.xsdFiles) {
+            fingerprint.addLocation(mapLocation(xsdFile).toString());
+        }
+        if (option.getBindingFiles() != null) {
+            for (String bf : option.getBindingFiles()) {
+                fingerprint.addLocation(mapLocation(bf).toString());
+            }
+        }
+        if (option.getCatalog() != null) {
+            fingerprint.addLocation(mapLocation(option.getCatalog()).toString());
+        }
+        if (option.getDependencies() != null) {
+            for (File file : option.getDependencies()) {
+                fingerprint.addFile(file);
+            }
+        }
+        fingerprint.addLocations(loaded);
+        return fingerprint;
+    }
+
+    /**
+     * The XJC arguments without the ones that do not influence the generated code.
+     */
+    private List<String> getFingerprintArguments(XsdOption option)
+        throws MojoExecutionException, MalformedURLException {
+        List<String> args = new ArrayList<>(Arrays.asList(
+            getArguments(option, getXsdFiles(option.getXsdDir(), option.getXsd()), "")));
+        for (int x = args.size() - 1; x >= 0; x--) {
+            if ("-d".equals(args.get(x)) && x + 1 < args.size()) {
+                args.remove(x + 1);
+                args.remove(x);
+            } else if (XSDToJavaRunner.SCHEMA_CACHE.equals(args.get(x)) && x + 1 < args.size()) {
+                args.remove(x + 1);
+                args.remove(x);
+            } else if ("-verbose".equals(args.get(x)) || XSDToJavaRunner.OFFLINE.equals(args.get(x))) {
+                args.remove(x);
+            }
+        }
+        return args;
+    }
+
+    private void completeTask(GenerationTask task, int i, File outputDirFile) throws MojoExecutionException {
+        if (getLog().isDebugEnabled()) {
+            getLog().debug("Generated " + task.fileCount + " files for " + task.xsdFile + ", "
+                           + task.unchangedCount + " unchanged (parsing "
+                           + task.parseTime + " ms, code generation " + task.generateTime + " ms, writing "
+                           + task.writeTime + " ms, read " + task.fileReads + " files and "
+                           + task.entryReads + " entries of " + task.archiveCount + " jars)");
+        }
+        if (!task.batched.isEmpty()) {
+            for (GenerationTask member : task.batched) {
+                member.loadedSchemas.addAll(task.loadedSchemas);
+                member.generatedFiles.addAll(task.generatedFiles);
+                completeTask(member, i, outputDirFile);
+            }
+            return;
+        }
+        boolean result = true;
+        try {
+            if (i == 0) {
+                createFingerprint(task, task.loadedSchemas).write(task.doneFile);
+                task.completed = true;
+            }
+            File[] dirs = task.option.getDeleteDirs();
+            if (dirs != null) {
+                for (File dir : dirs) {
+                    result = result && deleteDir(dir);
+                }
+            }
+            if (!task.outputRefreshed) {
+                buildContext.refresh(outputDirFile);
+            }
+        } catch (Exception e) {
+            throw new MojoExecutionException(e.getMessage(), e);
         }
-    }
-    public void execute() throws MojoExecutionException {
-        if (isJava9Compatible()) {
-            fork = true;
-            additionalJvmArgs =  
-                     "--add-exports=jdk.xml.dom/org.w3c.dom.html=ALL-UNNAMED "
-                    + "--add-exports=java.xml/com.sun.org.apache.xerces.internal.impl.xs=ALL-UNNAMED "
-                    + "--add-opens java.base/java.security=ALL-UNNAMED "
-                    + "--add-opens java.base/java.net=ALL-UNNAMED "
-                    + "--add-opens java.base/java.lang=ALL-UNNAMED "
-                    + "--add-opens java.base/java.util=ALL-UNNAMED "
-                    + "--add-opens java.base/java.util.concurrent=ALL-UNNAMED " 
-                    + (additionalJvmArgs == null ? "" : additionalJvmArgs); 
+        if (!result) {
+            throw new MojoExecutionException("Could not delete redundant dirs");
         }
-        String outputDir = getOutputDir();
-        
-        File outputDirFile = new File(outputDir);
-        outputDirFile.mkdirs();
-        markerDirectory.mkdirs();
+    }
 
-        boolean result = true;
-        
-        if (xsdOptions == null) {
-            throw new MojoExecutionException("Must specify xsdOptions");           
+    private int runTask(GenerationTask task, String outputDir, BuildContext context) throws Exception {
+        ClassLoader origLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            return run(task, outputDir, context);
+        } finally {
+            Thread.currentThread().setContextClassLoader(origLoader);
         }
-    
-        for (int x = 0; x < xsdOptions.length; x++) {
-            ClassLoader origLoader = Thread.currentThread().getContextClassLoader();
-            final String[] xsdFiles = getXsdFiles(xsdOptions[x].getXsdDir(), xsdOptions[x].getXsd());
-            for (String xsdFile : xsdFiles) {
-                try {
-                    URI xsdURI = mapLocation(xsdFile);
-                    URI basedir = project.getBasedir().toURI();
-
-                    String doneFileName = xsdURI.toString();
-                    if (doneFileName.startsWith(basedir.toString())) {
-                        doneFileName = doneFileName.substring(basedir.toString().length());
-                    }
-
-                    doneFileName = doneFileName.replace('?', '_')
-                        .replace('&', '_').replace('/', '_').replace('\\', '_')
-                        .replace(':', '_').replace('!', '_');
-
-                    // If URL to WSDL, replace ? and & since they're invalid chars for file names
-                    File doneFile =
-                        new File(markerDirectory, "." + doneFileName + ".DONE");
-
-                    long srctimestamp = 0;
-                    if ("file".equals(xsdURI.getScheme())) {
-                        srctimestamp = new File(xsdURI).lastModified();
-                    } else {
-                        try {
-                            srctimestamp = xsdURI.toURL().openConnection().getDate();
-                        } catch (Exception e) {
-                            //ignore
-                        }
-                    }
-                    if (xsdOptions[x].getBindingFiles() != null) {
-                        for (String bf : xsdOptions[x].getBindingFiles()) {
-                            URI bindingURI = mapLocation(bf);
-                            if ("file".equals(bindingURI.getScheme())) {
-                                long bts = new File(bindingURI).lastModified();
-                                if (bts > srctimestamp) {
-                                    srctimestamp = bts;
-                                }
-                            }
-                        }
-                    }
-
-                    boolean doWork = false;
-                    if (!doneFile.exists()) {
-                        doWork = true;
-                    } else if (srctimestamp > doneFile.lastModified()) {
-                        doWork = true;
-                    } else {
-                        File[] files = xsdOptions[x].getDependencies();
-                        if (files != null) {
-                            for (File file : files) {
-                                if (file.lastModified() > doneFile.lastModified()) {
-                                    doWork = true;
-                                }
-                            }
-                        }
-                    }
-
-                    if (doWork) {
-                        try {
-                            File[] files = xsdOptions[x].getDependencies();
-                            if (files != null) {
-                                for (File file : files) {
-                                    if (file.lastModified() > doneFile.lastModified()) {
-                                        buildContext.removeMessages(file);
-                                    }
-                                }
-                            }
-                            removeMessages(xsdFile);
-                            if (xsdOptions[x].getBindingFiles() != null) {
-                                for (String bf : xsdOptions[x].getBindingFiles()) {
-                                    removeMessages(bf);
-                                }
-                            }
-                            int i = run(xsdOptions[x], xsdFile, outputDir);
-                            if (i == 0) {
-                                doneFile.delete();
-                                doneFile.createNewFile();
-                            }
-                            File[] dirs = xsdOptions[x].getDeleteDirs();
-                            if (dirs != null) {
-                                for (File dir : dirs) {
-                                    result = result && deleteDir(dir);
-                                }
-                            }
-                            buildContext.refresh(outputDirFile);
-                        } catch (Exception e) {
-                            throw new MojoExecutionException(e.getMessage(), e);
-                        }
-                    }
+    }
 
-                    if (!result) {
-                        throw new MojoExecutionException("Could not delete redundant dirs");
+    /**
+     * Moves the files of a staging directory to the output directory.  Files that already
+     * have the same content are left alone to keep their timestamps; returns their number.
+     * In incremental builds the files are written through the build context, which
+     * refreshes them.
+     */
+    private int mergeDir(File from, File to) throws IOException {
+        final Path source = from.toPath();
+        final Path target = to.toPath();
+        final boolean incremental = buildContext.isIncremental();
+        final int[] unchanged = new int[1];
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path dest = target.resolve(source.relativize(file));
+                if (WriteIfChangedCodeWriter.isSameContent(file, dest)) {
+                    unchanged[0]++;
+                    return FileVisitResult.CONTINUE;
+                }
+                Files.createDirectories(dest.getParent());
+                if (incremental) {
+                    try (OutputStream out = buildContext.newFileOutputStream(dest.toFile())) {
+                        Files.copy(file, out);
                     }
-                } finally {
-                    Thread.currentThread().setContextClassLoader(origLoader);
+                } else {
+                    Files.move(file, dest, StandardCopyOption.REPLACE_EXISTING);
                 }
+                return FileVisitResult.CONTINUE;
             }
-        }
+        });
+        return unchanged[0];
     }
     
     private String[] getXsdFiles(String xsdDir, String xsd) throws MojoExecutionException {
@@ -317,6 +1102,7 @@ public abstract class AbstractXSDToJavaMojo extends AbstractMojo {
             if (fileList == null || fileList.length == 0) {
                 throw new MojoExecutionException("Error, xsdDir \"" + xsdDir + "\" does not contain any *.xsd files.");
             }
+            Arrays.sort(fileList);
             xsdFiles = new String[fileList.length];
             for (int i = 0; i < fileList.length; ++i) {
                 xsdFiles[i] = xsdDir + (xsdDir.endsWith(File.separator) ? "" : File.separator) + fileList[i];
@@ -328,6 +1114,27 @@ public abstract class AbstractXSDToJavaMojo extends AbstractMojo {
         return xsdFiles;
     }
 
+    /**
+     * Resolves the configured extensions once per execution so that concurrent tasks
+     * do not hit the repository system over and over.
+     */
+    private synchronized List<File> getExtensionFiles() throws MojoExecutionException {
+        if (extensionFiles == null) {
+            List<File> files = new ArrayList<>();
+            if (extensions != null && !extensions.isEmpty()) {
+                try {
+                    for (String ext : extensions) {
+                        files.addAll(resolve(ext));
+                    }
+                } catch (Exception ex) {
+                    throw new MojoExecutionException("Could not download extension artifact", ex);
+                }
+            }
+            extensionFiles = files;
+        }
+        return extensionFiles;
+    }
+
     private Set<File> resolve(String artifactDescriptor) throws MojoExecutionException, RepositoryException {
         final Set<File> files = new HashSet<File>();
         for (ArtifactResult artifactResult : repository
@@ -361,18 +1168,37 @@ public abstract class AbstractXSDToJavaMojo extends AbstractMojo {
         return majorVersion >= 9;
     }
     
-    private int run(XsdOption option, String xsdFile, String outputDir) throws Exception {
+    private int run(GenerationTask task, String outputDir, BuildContext context) throws Exception {
+        if (!fork && isolated) {
+            return runIsolated(task, outputDir, context);
+        }
         if (!fork) {
-            String[] args = getArguments(option, outputDir);
+            String[] args = getArguments(task.option, task.xsdFiles, outputDir);
             this.getLog().debug("Args: " + Arrays.asList(args));
-            XJCErrorListener listener = new XJCErrorListener(buildContext);
-            int i = new XSDToJavaRunner(args, listener, new File(xsdFile), getClasspathElements()).run();
+            setExtensionClassLoader();
+            XJCErrorListener listener = new XJCErrorListener(context);
+            XSDToJavaRunner runner = new XSDToJavaRunner(args, listener, new File(task.xsdFile),
+                                                         getClasspathElements());
+            int i = runner.run();
+            task.loadedSchemas.addAll(runner.getLoadedSchemas());
+            task.generatedFiles.addAll(runner.generatedFiles);
+            task.pluginTimes.putAll(runner.pluginTimes);
+            task.parseTime = runner.parseTime;
+            task.generateTime = runner.generateTime;
+            task.writeTime = runner.writeTime;
+            task.fileCount = runner.fileCount;
+            task.unchangedCount = runner.unchangedCount;
+            task.fileReads = runner.fileReads;
+            task.entryReads = runner.entryReads;
+            task.archiveCount = runner.archiveCount;
+            task.outputRefreshed = context.isIncremental();
             if (i != 0 && listener.getFirstError() != null) {
                 throw listener.getFirstError();
             }
             return i;
         }
-        return runForked(option, outputDir);
+        // without the daemon, forked tasks are all run by runForkedJobs
+        return runDaemon(task, outputDir, context);
     }
     
     private void removeMessages(String file) throws MojoExecutionException {
@@ -387,29 +1213,47 @@ public abstract class AbstractXSDToJavaMojo extends AbstractMojo {
             }
         }        
     }
-    private String[] getArguments(XsdOption option, String outputDir) 
-        throws MojoExecutionException, MalformedURLException {
-        
+    private void setExtensionClassLoader() throws MojoExecutionException, MalformedURLException {
         List<URL> newCp = new ArrayList<URL>();
-        List<String> list = new ArrayList<String>();
-        if (extensions != null && !extensions.isEmpty()) {
-            try {
-                for (String ext : extensions) {
-                    for (File file : resolve(ext)) {
-                        list.add("-classpath");
-                        list.add(file.toURI().toURL().toExternalForm());
-                        newCp.add(file.toURI().toURL());
-                    }
-                }
-            } catch (Exception ex) {
-                throw new MojoExecutionException("Could not download extension artifact", ex);
-            }
+        for (File file : getExtensionFiles()) {
+            newCp.add(file.toURI().toURL());
         }
         if (!newCp.isEmpty()) {
             Thread.currentThread()
                 .setContextClassLoader(new URLClassLoader(newCp.toArray(new URL[0]),
                                                           Thread.currentThread().getContextClassLoader()));
         }
+    }
+
+    private String[] getArguments(XsdOption option, String[] xsdFiles, String outputDir)
+        throws MojoExecutionException, MalformedURLException {
+        List<String> list = getOptionArguments(option);
+        if (schemaCache) {
+            list.add(XSDToJavaRunner.SCHEMA_CACHE);
+            list.add(schemaCacheDirectory.getAbsolutePath());
+            if (offline) {
+                list.add(XSDToJavaRunner.OFFLINE);
+            }
+        }
+        list.add("-d");
+        list.add(outputDir);
+        for (String xsdFile : xsdFiles) {
+            list.add(mapLocation(xsdFile).toString());
+        }
+        return list.toArray(new String[0]);
+    }
+
+    /**
+     * The XJC arguments of an option, without the output directory and the schemas.
+     */
+    private List<String> getOptionArguments(XsdOption option)
+        throws MojoExecutionException, MalformedURLException {
+
+        List<String> list = new ArrayList<String>();
+        for (File file : getExtensionFiles()) {
+            list.add("-classpath");
+            list.add(file.toURI().toURL().toExternalForm());
+        }
         if (option.getPackagename() != null) {
             list.add("-p");
             list.add(option.getPackagename());
@@ -437,16 +1281,7 @@ public abstract class AbstractXSDToJavaMojo extends AbstractMojo {
             list.add("-encoding");
             list.add(encoding);
         }
-        
-        String[] xsdFiles = getXsdFiles(option.getXsdDir(), option.getXsd());
-        for (String xsdFile : xsdFiles) {
-            list.add("-d");
-            list.add(outputDir);
-            list.add(mapLocation(xsdFile).toString());
-        }
-
-        return list.toArray(new String[0]);
-        
+        return list;
     }
     
     private boolean deleteDir(File f) {
@@ -484,8 +1319,10 @@ public abstract class AbstractXSDToJavaMojo extends AbstractMojo {
         return osName.startsWith("Windows");
     }
     
-    private int runForked(XsdOption option, String outputDir) throws Exception {
-        String[] args = getArguments(option, outputDir);
+    /**
+     * Forks a runner with the given arguments.  Fails if it does not exit normally.
+     */
+    private void executeForked(String[] args, StreamConsumer out, StreamConsumer err) throws Exception {
         Commandline cmd = new Commandline();
         cmd.getShell().setQuotedArgumentsEnabled(true); // for JVM args
         cmd.setWorkingDirectory(project.getBuild().getDirectory());
@@ -497,41 +1334,8 @@ public abstract class AbstractXSDToJavaMojo extends AbstractMojo {
         }
         cmd.createArg().setLine(additionalJvmArgs);
 
-        final File file;
         try {
-            file = Files.createTempFile("cxf-xjc-plugin", ".jar").toFile();
-            file.deleteOnExit();
-            
-            JarArchiver jar = new JarArchiver();
-            jar.setDestFile(file.getAbsoluteFile());
-
-            Manifest manifest = new Manifest();
-            Attribute attr = new Attribute();
-            attr.setName("Class-Path");
-            StringBuilder b = new StringBuilder(8000);
-            for (String cp : getClasspathElements()) {
-                URI uri = mapLocation(cp);
-                if (uri != null) {
-                    b.append(uri.toString()).append(' ');
-                }
-            }
-            for (Artifact a : pluginArtifacts) {
-                b.append(a.getFile().toURI().toURL().toExternalForm()).append(' ');
-            }
-            attr.setValue(b.toString());
-            manifest.getMainSection().addConfiguredAttribute(attr);
-
-            attr = new Attribute();
-            attr.setName("Main-Class");
-            attr.setValue(XSDToJavaRunner.class.getName());
-            manifest.getMainSection().addConfiguredAttribute(attr);
-
-            if (getLog().isDebugEnabled()) {
-                getLog().debug("Manifest: " + manifest);
-            }
-            
-            jar.addConfiguredManifest(manifest);
-            jar.createArchive();
+            File file = getLauncherJar(markerDirectory, getLauncherClassPath());
 
             cmd.createArg().setValue("-jar");
             
@@ -547,48 +1351,9 @@ public abstract class AbstractXSDToJavaMojo extends AbstractMojo {
         }
         cmd.addArguments(args);
 
-        StreamConsumer out = new StreamConsumer() {
-            File file;
-            int severity;
-            int linenum;
-            int column;
-            StringBuilder message = new StringBuilder();
-
-            public synchronized void consumeLine(String line) {
-                if (getLog().isDebugEnabled()) {
-                    getLog().debug(line);
-                }
-                if (line.startsWith("DONE")) {
-                    buildContext.addMessage(file, linenum, column, message.toString(), severity, null);
-                } else if (line.startsWith("MSG: ")
-                    || line.startsWith("ERROR: ")
-                    || line.startsWith("WARNING: ")) {
-                    file = new File(line.substring(line.indexOf(' ')).trim());
-                    String type = line.substring(0, line.indexOf(':'));
-                    if (type.contains("ERROR")) {
-                        severity = BuildContext.SEVERITY_ERROR;
-                    } else if (type.contains("WARNING")) {
-                        severity = BuildContext.SEVERITY_WARNING;
-                    } else {
-                        severity = 0;
-                    }
-                    linenum = 0;
-                    column = 0;
-                    message.setLength(0);
-                } else if (line.startsWith("Col: ")) {
-                    column = Integer.parseInt(line.substring(line.indexOf(' ')).trim());
-                } else if (line.startsWith("Line: ")) {
-                    linenum = Integer.parseInt(line.substring(line.indexOf(' ')).trim());
-                } else if (line.startsWith("Severity: ")) {
-                    severity = Integer.parseInt(line.substring(line.indexOf(' ')).trim());
-                } else {
-                    message.append(line).append('\n');
-                }
-            }
-        };
         int exitCode;
         try {
-            exitCode = CommandLineUtils.executeCommandLine(cmd, out, out);
+            exitCode = CommandLineUtils.executeCommandLine(cmd, out, err);
         } catch (CommandLineException e) {
             getLog().debug(e);
             throw new MojoExecutionException(e.getMessage(), e);
@@ -605,9 +1370,427 @@ public abstract class AbstractXSDToJavaMojo extends AbstractMojo {
 
             throw new MojoExecutionException(msg.toString());
         }
+    }
+
+    /**
+     * Runs all tasks in a single forked runner.  The runner reads the arguments of every
+     * task from a job file and sends the results of each job as soon as it is finished.
+     * With more than one thread the jobs run concurrently and generate into staging
+     * directories that are merged in declaration order.
+     */
+    private void runForkedJobs(List<GenerationTask> tasks, String outputDir, File outputDirFile)
+        throws MojoExecutionException {
+        boolean staged = threads > 1 || cache;
+        List<String[]> jobs = new ArrayList<>(tasks.size());
+        List<BuildContext> contexts = new ArrayList<>(tasks.size());
+        try {
+            for (int x = 0; x < tasks.size(); x++) {
+                GenerationTask task = tasks.get(x);
+                String dir = outputDir;
+                if (staged) {
+                    task.context = new DeferredBuildContext(buildContext);
+                    task.stagingDir = new File(markerDirectory, "staging-" + x);
+                    deleteDir(task.stagingDir);
+                    task.stagingDir.mkdirs();
+                    dir = task.stagingDir.getAbsolutePath();
+                }
+                jobs.add(getArguments(task.option, task.xsdFiles, dir));
+                contexts.add(staged ? task.context : buildContext);
+            }
+            DiagnosticsReader reader = new DiagnosticsReader(getLog(), tasks, contexts);
+            executeJobs(jobs, reader);
+
+            for (int x = 0; x < tasks.size(); x++) {
+                GenerationTask task = tasks.get(x);
+                if (staged) {
+                    task.context.replay();
+                }
+                int i = reader.hasResult(x) ? reader.getResult(x) : -1;
+                if (i != 0) {
+                    throw new MojoExecutionException("Could not generate code for " + task.xsdFile
+                                                     + ", exit code: " + i);
+                }
+                if (staged) {
+                    storeInCache(task, i);
+                    task.unchangedCount = mergeDir(task.stagingDir, outputDirFile);
+                    task.outputRefreshed = buildContext.isIncremental();
+                }
+                completeTask(task, i, outputDirFile);
+            }
+        } catch (MojoExecutionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        } finally {
+            for (GenerationTask task : tasks) {
+                if (task.stagingDir != null) {
+                    deleteDir(task.stagingDir);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forks a runner for the given jobs.  The runner connects back to a loopback socket and
+     * sends its results as {@link DiagnosticsWriter} records, which are decoded while it runs.
+     */
+    private void executeJobs(List<String[]> jobs, final DiagnosticsReader reader) throws Exception {
+        File jobFile = Files.createTempFile(markerDirectory.toPath(), "jobs", ".txt").toFile();
+        final String token = XSDToJavaDaemon.newToken();
+        try (ServerSocket server = new ServerSocket(0, 5, InetAddress.getLoopbackAddress())) {
+            XSDToJavaRunner.writeJobs(jobFile, jobs);
+            // a runner that connected before it exited is accepted from the backlog, so the
+            // receiver only gives up once the runner has exited and nothing is waiting
+            final AtomicBoolean exited = new AtomicBoolean();
+            server.setSoTimeout(1000);
+            FutureTask<Void> receiver = new FutureTask<>(() -> {
+                while (true) {
+                    Socket accepted;
+                    try {
+                        accepted = server.accept();
+                    } catch (SocketTimeoutException e) {
+                        if (exited.get()) {
+                            throw new MojoExecutionException("The runner exited without reporting results");
+                        }
+                        continue;
+                    }
+                    try (Socket socket = accepted) {
+                        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                        if (token.equals(in.readUTF())) {
+                            reader.read(in);
+                            return null;
+                        }
+                    }
+                }
+            });
+            Thread thread = new Thread(receiver, "cxf-xjc-diagnostics");
+            thread.setDaemon(true);
+            thread.start();
+
+            StreamConsumer log = line -> getLog().debug(line);
+            try {
+                executeForked(new String[] {XSDToJavaRunner.JOBS, jobFile.getAbsolutePath(),
+                                            XSDToJavaRunner.THREADS, Integer.toString(threads),
+                                            XSDToJavaRunner.DIAGNOSTICS, Integer.toString(server.getLocalPort()),
+                                            XSDToJavaRunner.TOKEN, token}, log, log);
+            } finally {
+                exited.set(true);
+            }
+            try {
+                receiver.get(60, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof MojoExecutionException) {
+                    throw (MojoExecutionException)e.getCause();
+                }
+                throw e;
+            }
+        } finally {
+            jobFile.delete();
+        }
+    }
+
+    /**
+     * The Class-Path of the launcher jar of forked runs.  It only depends on the project and
+     * plugin dependencies, so it is computed once per execution.  The launcher jar of the
+     * daemon only has the plugin dependencies.
+     */
+    private synchronized String getLauncherClassPath() throws Exception {
+        if (launcherClassPath == null) {
+            StringBuilder b = new StringBuilder(8000);
+            for (String cp : getClasspathElements()) {
+                URI uri = mapLocation(cp);
+                if (uri != null) {
+                    b.append(uri.toString()).append(' ');
+                }
+            }
+            launcherClassPath = b.append(getPluginClassPath()).toString();
+        }
+        return launcherClassPath;
+    }
+
+    /**
+     * The plugin dependencies as a Class-Path, without the project classpath.
+     */
+    private synchronized String getPluginClassPath() throws MalformedURLException {
+        if (pluginClassPath == null) {
+            StringBuilder b = new StringBuilder(4000);
+            for (Artifact a : pluginArtifacts) {
+                b.append(a.getFile().toURI().toURL().toExternalForm()).append(' ');
+            }
+            pluginClassPath = b.toString();
+        }
+        return pluginClassPath;
+    }
+
+    /**
+     * Identifies the current state of the plugin dependencies for the keys of the isolated
+     * class loaders and the daemons.
+     */
+    private synchronized String getPluginKey() throws IOException {
+        if (pluginKey == null) {
+            pluginKey = hash(describeClassPath(getPluginClassPath()));
+        }
+        return pluginKey;
+    }
+
+    /**
+     * Returns the launcher jar for the given classpath in the given directory.  The jar
+     * is named after a hash of the classpath and the version of the runner and is reused by
+     * all forks as long as those do not change.
+     */
+    private synchronized File getLauncherJar(File directory, String classPath) throws Exception {
+        String version = XSDToJavaRunner.class.getPackage().getImplementationVersion();
+        File jar = new File(directory, "launcher-" + hash(classPath + '\n' + version) + ".jar");
+        if (!jar.isFile()) {
+            directory.mkdirs();
+            File tmp = Files.createTempFile(directory.toPath(), "launcher", ".tmp").toFile();
+            try {
+                createLauncherJar(tmp, classPath);
+                Files.move(tmp.toPath(), jar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                tmp.delete();
+            }
+        }
+        return jar;
+    }
+
+    /**
+     * Creates the jar that starts the runner with the given classpath in its manifest.
+     */
+    private void createLauncherJar(File file, String classPath) throws Exception {
+        JarArchiver jar = new JarArchiver();
+        jar.setDestFile(file.getAbsoluteFile());
+
+        Manifest manifest = new Manifest();
+        Attribute attr = new Attribute();
+        attr.setName("Class-Path");
+        attr.setValue(classPath);
+        manifest.getMainSection().addConfiguredAttribute(attr);
+
+        attr = new Attribute();
+        attr.setName("Main-Class");
+        attr.setValue(XSDToJavaRunner.class.getName());
+        manifest.getMainSection().addConfiguredAttribute(attr);
+
+        if (getLog().isDebugEnabled()) {
+            getLog().debug("Manifest: " + manifest);
+        }
+        
+        jar.addConfiguredManifest(manifest);
+        jar.createArchive();
+    }
+
+    private int runDaemon(GenerationTask task, String outputDir, BuildContext context) throws Exception {
+        List<String> args = Arrays.asList(getArguments(task.option, task.xsdFiles, outputDir));
+        checkDaemonDirectory();
+        List<String> classPath = new ArrayList<>(getClasspathElements());
+        String key = getDaemonKey();
+        File portFile = new File(daemonDirectory, key + ".port");
+
+        List<GenerationTask> tasks = Collections.singletonList(task);
+        List<BuildContext> contexts = Collections.singletonList(context);
+        int exitCode;
+        try {
+            exitCode = XSDToJavaDaemon.submit(portFile, args, classPath,
+                                              new DiagnosticsReader(getLog(), tasks, contexts));
+        } catch (IOException e) {
+            getLog().debug("Generator daemon not available: " + e.getMessage());
+            startDaemon(key, portFile);
+            exitCode = XSDToJavaDaemon.submit(portFile, args, classPath,
+                                              new DiagnosticsReader(getLog(), tasks, contexts));
+        }
+        if (exitCode != 0) {
+            throw new MojoExecutionException("\nExit code: " + exitCode + "\nArguments were: " + args + "\n");
+        }
+        return 0;
+    }
+
+    /**
+     * Runs a task in the isolated class loader.  The runner reports its results as
+     * {@link DiagnosticsWriter} records, as the classes of the mojo and the runner differ.
+     * The project classpath is passed to the runner, so the loader only depends on the
+     * plugin and can be shared by all modules.
+     */
+    private int runIsolated(GenerationTask task, String outputDir, BuildContext context) throws Exception {
+        String[] args = getArguments(task.option, task.xsdFiles, outputDir);
+        getLog().debug("Args: " + Arrays.asList(args));
+        List<URL> urls = new ArrayList<>(pluginArtifacts.size());
+        for (Artifact a : pluginArtifacts) {
+            urls.add(a.getFile().toURI().toURL());
+        }
+        ClassLoader loader = IsolatedClassLoaders.get(getPluginKey(), urls.toArray(new URL[0]));
+        Thread.currentThread().setContextClassLoader(loader);
 
-        file.delete();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int exitCode = (Integer)loader.loadClass(XSDToJavaRunner.class.getName())
+            .getMethod("runIsolated", String[].class, List.class, OutputStream.class)
+            .invoke(null, args, new ArrayList<>(getClasspathElements()), out);
+        new DiagnosticsReader(getLog(), Collections.singletonList(task), Collections.singletonList(context))
+            .read(new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+        if (exitCode != 0) {
+            throw new MojoExecutionException("\nExit code: " + exitCode + "\nArguments were: "
+                                             + Arrays.asList(args) + "\n");
+        }
         return 0;
     }
 
+    /**
+     * Creates the daemon directory, accessible only to the current user, or checks that an
+     * existing one is owned by the current user and cannot be written by others.  Otherwise
+     * other users could plant a launcher jar or a port file pointing to their own listener.
+     */
+    private synchronized void checkDaemonDirectory() throws IOException, MojoExecutionException {
+        if (daemonDirectoryChecked) {
+            return;
+        }
+        Path dir = daemonDirectory.toPath();
+        boolean posix = Files.getFileStore(Files.createDirectories(dir.getParent()))
+            .supportsFileAttributeView(PosixFileAttributeView.class);
+        if (!Files.isDirectory(dir)) {
+            try {
+                if (posix) {
+                    Files.createDirectory(dir, PosixFilePermissions.asFileAttribute(
+                        PosixFilePermissions.fromString("rwx------")));
+                } else {
+                    Files.createDirectory(dir);
+                }
+            } catch (FileAlreadyExistsException e) {
+                // created concurrently, checked below
+            }
+        }
+        dir = dir.toRealPath();
+        // the owner of a new file is the current user, as far as the file system is concerned
+        Path probe = Files.createTempFile(dir, "owner", ".tmp");
+        UserPrincipal user;
+        try {
+            user = Files.getOwner(probe);
+        } finally {
+            Files.delete(probe);
+        }
+        UserPrincipal owner = Files.getOwner(dir);
+        if (!owner.equals(user)) {
+            throw new MojoExecutionException("The daemon directory " + daemonDirectory + " is owned by "
+                                             + owner.getName() + ", not by " + user.getName());
+        }
+        if (posix) {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(dir);
+            if (permissions.contains(PosixFilePermission.GROUP_WRITE)
+                || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+                throw new MojoExecutionException("The daemon directory " + daemonDirectory
+                                                 + " must not be writable by other users");
+            }
+        }
+        daemonDirectoryChecked = true;
+    }
+
+    /**
+     * Daemons are shared by runs with the same Java settings and the same plugin dependencies.
+     * The project classpath is not part of the key, it is passed with every job.
+     */
+    private synchronized String getDaemonKey() throws IOException {
+        if (daemonKey == null) {
+            daemonKey = hash(getJavaExecutable().getAbsolutePath() + '\n' + additionalJvmArgs + '\n'
+                             + getPluginKey());
+        }
+        return daemonKey;
+    }
+
+    /**
+     * The entries of a classpath for keys of daemons and class loaders.  The size and
+     * timestamp of the jars are included so that a rebuilt snapshot does not keep running in
+     * an old daemon or loader.  Directories, e.g. the output of a module of the reactor,
+     * count with the number of their files and the newest timestamp among them.
+     */
+    private static String describeClassPath(String classPath) throws IOException {
+        StringBuilder b = new StringBuilder(classPath.length() + 1000);
+        for (String entry : classPath.split(" ")) {
+            b.append(entry);
+            File f = entry.startsWith("file:") ? new File(URI.create(entry)) : null;
+            if (f != null && f.isFile()) {
+                b.append(' ').append(f.lastModified()).append(' ').append(f.length());
+            } else if (f != null && f.isDirectory()) {
+                b.append(describeDirectory(f));
+            }
+            b.append('\n');
+        }
+        return b.toString();
+    }
+
+    /**
+     * The newest timestamp and the number of the files in the given directory.
+     */
+    private static String describeDirectory(File dir) throws IOException {
+        long[] state = new long[2];
+        Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                state[0] = Math.max(state[0], attrs.lastModifiedTime().toMillis());
+                state[1]++;
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return " " + state[0] + " " + state[1];
+    }
+
+    static String hash(String s) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder b = new StringBuilder();
+        for (int x = 0; x < 12; x++) {
+            b.append(Character.forDigit((digest[x] >> 4) & 0xF, 16)).append(Character.forDigit(digest[x] & 0xF, 16));
+        }
+        return b.toString();
+    }
+
+    private void startDaemon(String key, File portFile) throws Exception {
+        synchronized (XSDToJavaDaemon.class) {
+            File lockFile = new File(daemonDirectory, key + ".lock");
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE,
+                                                        StandardOpenOption.WRITE);
+                FileLock lock = channel.lock()) {
+                if (XSDToJavaDaemon.isRunning(portFile)) {
+                    return;
+                }
+                portFile.delete();
+                // the daemon may outlive the build directory, so it gets a jar of its own
+                File jar = getLauncherJar(daemonDirectory, getPluginClassPath());
+                List<String> command = new ArrayList<>();
+                command.add(getJavaExecutable().getAbsolutePath());
+                if (additionalJvmArgs != null) {
+                    command.addAll(Arrays.asList(CommandLineUtils.translateCommandline(additionalJvmArgs)));
+                }
+                command.add("-cp");
+                command.add(jar.getAbsolutePath());
+                command.add(XSDToJavaDaemon.class.getName());
+                command.add(portFile.getAbsolutePath());
+                command.add(Long.toString(daemonIdleTimeout * 1000L));
+
+                File log = new File(daemonDirectory, key + ".log");
+                getLog().info("Starting generator daemon, log file: " + log);
+                Process process = new ProcessBuilder(command)
+                    .directory(project.getBasedir())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(log))
+                    .start();
+
+                long end = System.currentTimeMillis() + 60000L;
+                while (!XSDToJavaDaemon.isRunning(portFile)) {
+                    if (!process.isAlive()) {
+                        throw new MojoExecutionException("The generator daemon exited with code "
+                                                         + process.exitValue() + ", see " + log);
+                    }
+                    if (System.currentTimeMillis() > end) {
+                        process.destroy();
+                        throw new MojoExecutionException("The generator daemon did not start, see " + log);
+                    }
+                    Thread.sleep(100);
+                }
+            }
+        }
+    }
+
 }
@@ -0,0 +1,295 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.xml.resolver.Catalog;
+import org.apache.xml.resolver.CatalogEntry;
+import org.apache.xml.resolver.CatalogManager;
+
+/**
+ * The XML catalogs of a run.  Parsed catalogs are shared by all runs in the JVM that use the
+ * same catalog files.  Their system and URI entries are indexed by id and rewrite prefix, and
+ * resolved locations are memoized, so lookups do not scan the catalog entries again and again.
+ * A set of catalogs is parsed again when one of the catalog files given to the run changes;
+ * catalogs they delegate to are not checked.
+ */
+final class CatalogIndex {
+    /**
+     * The settings of the catalogs.  Only the parsed catalogs of this class are used for
+     * resolving; the static catalog of the manager stays empty.
+     */
+    static final CatalogManager MANAGER = new CatalogManager();
+    static {
+        MANAGER.setUseStaticCatalog(true);
+        MANAGER.setIgnoreMissingProperties(true);
+    }
+
+    private static final int MAX_CATALOGS = 16;
+    private static final boolean WINDOWS = System.getProperty("os.name", "").contains("Windows");
+
+    private static final Map<String, ParsedCatalogs> CATALOGS =
+        new LinkedHashMap<String, ParsedCatalogs>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParsedCatalogs> eldest) {
+                return size() > MAX_CATALOGS;
+            }
+        };
+
+    private final List<File> files = new ArrayList<>();
+    private final Map<String, URL> urls = new HashMap<>();
+    private ParsedCatalogs catalogs;
+
+    void add(File catalogFile) {
+        files.add(catalogFile);
+        catalogs = null;
+    }
+
+    /**
+     * Resolves the entity the way the {@link org.apache.xml.resolver.tools.CatalogResolver} does:
+     * by system id first, then by public id.
+     */
+    String resolve(String publicId, String systemId) throws IOException {
+        if (catalogs == null) {
+            catalogs = getCatalogs(files);
+        }
+        return catalogs.resolve(publicId, systemId);
+    }
+
+    /**
+     * Returns the URL of a resolved location, looking up classpath: locations with the given loader.
+     */
+    URL getURL(String resolved, ClassLoader loader) throws MalformedURLException {
+        URL url = urls.get(resolved);
+        if (url == null) {
+            if (resolved.startsWith("classpath:")) {
+                url = loader.getResource(resolved.substring("classpath:".length()));
+                if (url == null) {
+                    throw new MalformedURLException("Resource not found: " + resolved);
+                }
+            } else {
+                url = new URL(resolved);
+            }
+            urls.put(resolved, url);
+        }
+        return url;
+    }
+
+    /**
+     * Returns a stream of the URL that is only opened when it is first read, so the resolved
+     * documents the forest has already loaded are never opened.
+     */
+    static InputStream openLazily(URL url, HttpSchemaCache schemaCache) {
+        return new DeferredStream(url, schemaCache);
+    }
+
+    private static ParsedCatalogs getCatalogs(List<File> files) throws IOException {
+        StringBuilder key = new StringBuilder();
+        for (File f : files) {
+            key.append(f.getAbsolutePath()).append('|').append(f.lastModified())
+                .append('|').append(f.length()).append('\n');
+        }
+        synchronized (CATALOGS) {
+            ParsedCatalogs catalogs = CATALOGS.get(key.toString());
+            if (catalogs == null) {
+                catalogs = new ParsedCatalogs(files);
+                CATALOGS.put(key.toString(), catalogs);
+            }
+            return catalogs;
+        }
+    }
+
+    private static final class ParsedCatalogs {
+        private static final String UNRESOLVED = "";
+
+        private final IndexedCatalog catalog = new IndexedCatalog();
+        private final Map<String, String> resolved = new ConcurrentHashMap<>();
+
+        ParsedCatalogs(List<File> files) throws IOException {
+            catalog.setCatalogManager(MANAGER);
+            catalog.setupReaders();
+            catalog.loadSystemCatalogs();
+            for (File f : files) {
+                catalog.parseCatalog(f.getPath());
+            }
+        }
+
+        String resolve(String publicId, String systemId) {
+            String key = publicId + ' ' + systemId;
+            String location = resolved.get(key);
+            if (location == null) {
+                // the catalogs parse the catalogs they delegate to lazily
+                synchronized (catalog) {
+                    location = resolveEntity(publicId, systemId);
+                }
+                resolved.put(key, location == null ? UNRESOLVED : location);
+            }
+            return location == null || location.isEmpty() ? null : location;
+        }
+
+        private String resolveEntity(String publicId, String systemId) {
+            try {
+                String location = systemId == null ? null : catalog.resolveSystem(systemId);
+                if (location == null && publicId != null) {
+                    location = catalog.resolvePublic(publicId, null);
+                }
+                return location;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * A catalog that keeps its system and URI entries in hash maps.  Entries of other kinds,
+     * and case insensitive matching on Windows, are left to the linear search of the base class.
+     */
+    public static class IndexedCatalog extends Catalog {
+        private final Map<String, String> system = new HashMap<>();
+        private final Map<String, String> uri = new HashMap<>();
+        private final Prefixes systemRewrites = new Prefixes();
+        private final Prefixes uriRewrites = new Prefixes();
+        private boolean scanSystem = WINDOWS;
+        private boolean scanURI = WINDOWS;
+
+        @Override
+        public void addEntry(CatalogEntry entry) {
+            super.addEntry(entry);
+            int type = entry.getEntryType();
+            if (type == SYSTEM) {
+                system.putIfAbsent(entry.getEntryArg(0), entry.getEntryArg(1));
+            } else if (type == URI) {
+                uri.putIfAbsent(entry.getEntryArg(0), entry.getEntryArg(1));
+            } else if (type == REWRITE_SYSTEM) {
+                systemRewrites.add(entry.getEntryArg(0), entry.getEntryArg(1));
+            } else if (type == REWRITE_URI) {
+                uriRewrites.add(entry.getEntryArg(0), entry.getEntryArg(1));
+            } else if (type == SYSTEM_SUFFIX || type == DELEGATE_SYSTEM) {
+                scanSystem = true;
+            } else if (type == URI_SUFFIX || type == DELEGATE_URI) {
+                scanURI = true;
+            }
+        }
+
+        @Override
+        protected String resolveLocalSystem(String systemId) throws IOException {
+            if (scanSystem) {
+                return super.resolveLocalSystem(systemId);
+            }
+            String location = system.get(systemId);
+            return location != null ? location : systemRewrites.rewrite(systemId);
+        }
+
+        @Override
+        protected String resolveLocalURI(String id) throws IOException {
+            if (scanURI) {
+                return super.resolveLocalURI(id);
+            }
+            String location = uri.get(id);
+            return location != null ? location : uriRewrites.rewrite(id);
+        }
+    }
+
+    /**
+     * Rewrite entries by prefix.  Like the catalog, the longest matching prefix wins and the
+     * first entry wins among equal prefixes.
+     */
+    private static final class Prefixes {
+        private final Map<String, String> rewrites = new HashMap<>();
+        private final NavigableSet<Integer> lengths = new TreeSet<>(Collections.reverseOrder());
+
+        void add(String prefix, String replacement) {
+            if (rewrites.putIfAbsent(prefix, replacement) == null) {
+                lengths.add(prefix.length());
+            }
+        }
+
+        String rewrite(String id) {
+            for (int length : lengths.tailSet(id.length())) {
+                String prefix = id.substring(0, length);
+                String replacement = rewrites.get(prefix);
+                if (replacement != null) {
+                    return replacement + id.substring(length);
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class DeferredStream extends InputStream {
+        private final URL url;
+        private final HttpSchemaCache schemaCache;
+        private InputStream in;
+
+        DeferredStream(URL url, HttpSchemaCache schemaCache) {
+            this.url = url;
+            this.schemaCache = schemaCache;
+        }
+
+        private InputStream in() throws IOException {
+            if (in == null) {
+                in = SchemaFileSystems.open(url.toExternalForm(), schemaCache);
+            }
+            return in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return in().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return in().read(b, off, len);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return in().skip(n);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return in().available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.plexus.util.Scanner;
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+/**
+ * BuildContext that records the messages reported by a generation task so they can be
+ * passed on to the real BuildContext later, in a well defined order.  The task writes
+ * into a staging directory, so files are written directly; the real BuildContext sees
+ * them when they are merged into the output directory.  Everything else is delegated
+ * straight away.
+ */
+public class DeferredBuildContext implements BuildContext {
+    private final BuildContext delegate;
+    private final List<Runnable> messages = new ArrayList<>();
+
+    public DeferredBuildContext(BuildContext delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Passes all recorded messages on to the wrapped BuildContext.
+     */
+    public synchronized void replay() {
+        for (Runnable r : messages) {
+            r.run();
+        }
+        messages.clear();
+    }
+
+    public boolean hasDelta(String relpath) {
+        return delegate.hasDelta(relpath);
+    }
+    public boolean hasDelta(File file) {
+        return delegate.hasDelta(file);
+    }
+    public boolean hasDelta(@SuppressWarnings("rawtypes") List relpaths) {
+        return delegate.hasDelta(relpaths);
+    }
+    public void refresh(File file) {
+        delegate.refresh(file);
+    }
+    public OutputStream newFileOutputStream(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        return new FileOutputStream(file);
+    }
+    public Scanner newScanner(File basedir) {
+        return delegate.newScanner(basedir);
+    }
+    public Scanner newDeleteScanner(File basedir) {
+        return delegate.newDeleteScanner(basedir);
+    }
+    public Scanner newScanner(File basedir, boolean ignoreDelta) {
+        return delegate.newScanner(basedir, ignoreDelta);
+    }
+    public boolean isIncremental() {
+        return delegate.isIncremental();
+    }
+    public void setValue(String key, Object value) {
+        delegate.setValue(key, value);
+    }
+    public Object getValue(String key) {
+        return delegate.getValue(key);
+    }
+    public boolean isUptodate(File target, File source) {
+        return delegate.isUptodate(target, source);
+    }
+
+    public synchronized void addWarning(final File file, final int line, final int column,
+                                        final String message, final Throwable cause) {
+        messages.add(() -> delegate.addWarning(file, line, column, message, cause));
+    }
+    public synchronized void addError(final File file, final int line, final int column,
+                                      final String message, final Throwable cause) {
+        messages.add(() -> delegate.addError(file, line, column, message, cause));
+    }
+    public synchronized void addMessage(final File file, final int line, final int column, final String message,
+                                        final int severity, final Throwable cause) {
+        messages.add(() -> delegate.addMessage(file, line, column, message, severity, cause));
+    }
+    public synchronized void removeMessages(final File file) {
+        messages.add(() -> delegate.removeMessages(file));
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * BuildContext of a job in a forked runner that sends the messages to the mojo through
+ * a {@link DiagnosticsWriter}.
+ */
+public class DiagnosticsBuildContext extends XJCBuildContext {
+    private final DiagnosticsWriter writer;
+    private final int job;
+
+    public DiagnosticsBuildContext(DiagnosticsWriter writer, int job) {
+        this.writer = writer;
+        this.job = job;
+    }
+
+    @Override
+    public void addWarning(File file, int line, int column, String message, Throwable cause) {
+        addMessage(file, line, column, message, SEVERITY_WARNING, cause);
+    }
+    @Override
+    public void addError(File file, int line, int column, String message, Throwable cause) {
+        addMessage(file, line, column, message, SEVERITY_ERROR, cause);
+    }
+    @Override
+    public void addMessage(File file, int line, int column, String message, int severity, Throwable cause) {
+        try {
+            writer.message(job, file.getAbsolutePath(), line, column, severity, message, cause);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
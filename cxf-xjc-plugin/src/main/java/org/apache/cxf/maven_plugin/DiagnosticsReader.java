@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+/**
+ * Decodes the records written by a {@link DiagnosticsWriter} and passes them on to the
+ * tasks the jobs were created for: messages go to the BuildContext of the task, loaded
+ * schemas, generated files and the timings of the phases and plugins are recorded in
+ * the task.
+ */
+class DiagnosticsReader {
+    private final Log log;
+    private final List<GenerationTask> tasks;
+    private final List<BuildContext> contexts;
+    private final int[] results;
+
+    DiagnosticsReader(Log log, List<GenerationTask> tasks, List<BuildContext> contexts) {
+        this.log = log;
+        this.tasks = tasks;
+        this.contexts = contexts;
+        this.results = new int[tasks.size()];
+        Arrays.fill(results, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Whether the result of the given job has been received.
+     */
+    synchronized boolean hasResult(int job) {
+        return results[job] != Integer.MIN_VALUE;
+    }
+
+    synchronized int getResult(int job) {
+        return results[job];
+    }
+
+    /**
+     * Reads records until the end of the stream.
+     */
+    void read(DataInputStream in) throws IOException {
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            process(bytes);
+        }
+    }
+
+    private synchronized void process(byte[] bytes) throws IOException {
+        DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes));
+        byte type = record.readByte();
+        int job = record.readInt();
+        GenerationTask task = tasks.get(job);
+        switch (type) {
+        case DiagnosticsWriter.MESSAGE:
+            File file = new File(readString(record));
+            int line = record.readInt();
+            int column = record.readInt();
+            int severity = record.readInt();
+            String message = readString(record);
+            String trace = readString(record);
+            if (!trace.isEmpty() && log.isDebugEnabled()) {
+                log.debug(trace);
+            }
+            contexts.get(job).addMessage(file, line, column, message, severity, null);
+            break;
+        case DiagnosticsWriter.LOADED:
+            task.loadedSchemas.add(readString(record));
+            break;
+        case DiagnosticsWriter.GENERATED:
+            task.generatedFiles.add(readString(record));
+            break;
+        case DiagnosticsWriter.PLUGIN:
+            task.pluginTimes.put(readString(record), record.readLong());
+            break;
+        case DiagnosticsWriter.SUMMARY:
+            task.parseTime = record.readLong();
+            task.generateTime = record.readLong();
+            task.writeTime = record.readLong();
+            task.fileCount = record.readInt();
+            task.unchangedCount = record.readInt();
+            break;
+        case DiagnosticsWriter.RESOLVED:
+            task.fileReads = record.readInt();
+            task.entryReads = record.readInt();
+            task.archiveCount = record.readInt();
+            break;
+        case DiagnosticsWriter.EXIT:
+            results[job] = record.readInt();
+            break;
+        default:
+            throw new IOException("Unknown diagnostics record " + type);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
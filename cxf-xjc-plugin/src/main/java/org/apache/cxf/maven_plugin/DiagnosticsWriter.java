@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the results of generation jobs to the mojo.  Every record is an int with the
+ * length of the record, followed by the record type, the index of the job and the fields
+ * of the record.  Strings are written as their UTF-8 length followed by the bytes.
+ * {@link DiagnosticsReader} decodes the records.
+ */
+public class DiagnosticsWriter {
+    static final byte MESSAGE = 1;
+    static final byte LOADED = 2;
+    static final byte SUMMARY = 3;
+    static final byte EXIT = 4;
+    static final byte RESOLVED = 5;
+    static final byte GENERATED = 6;
+    static final byte PLUGIN = 7;
+
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+    private final DataOutputStream record = new DataOutputStream(buffer);
+
+    public DiagnosticsWriter(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    public synchronized void message(int job, String file, int line, int column, int severity,
+                                     String message, Throwable cause) throws IOException {
+        start(MESSAGE, job);
+        writeString(file);
+        record.writeInt(line);
+        record.writeInt(column);
+        record.writeInt(severity);
+        writeString(message);
+        if (cause == null) {
+            writeString("");
+        } else {
+            StringWriter trace = new StringWriter();
+            cause.printStackTrace(new PrintWriter(trace));
+            writeString(trace.toString());
+        }
+        end(false);
+    }
+
+    public synchronized void loaded(int job, String location) throws IOException {
+        start(LOADED, job);
+        writeString(location);
+        end(false);
+    }
+
+    /**
+     * Writes the path of a generated file relative to the output directory.
+     */
+    public synchronized void generated(int job, String path) throws IOException {
+        start(GENERATED, job);
+        writeString(path);
+        end(false);
+    }
+
+    /**
+     * Writes how many milliseconds a plugin ran, by its option.
+     */
+    public synchronized void plugin(int job, String option, long time) throws IOException {
+        start(PLUGIN, job);
+        writeString(option);
+        record.writeLong(time);
+        end(false);
+    }
+
+    public synchronized void summary(int job, long parseTime, long generateTime, long writeTime,
+                                     int fileCount, int unchangedCount) throws IOException {
+        start(SUMMARY, job);
+        record.writeLong(parseTime);
+        record.writeLong(generateTime);
+        record.writeLong(writeTime);
+        record.writeInt(fileCount);
+        record.writeInt(unchangedCount);
+        end(false);
+    }
+
+    /**
+     * Writes how many local files, jar entries and jars the job read its documents from.
+     */
+    public synchronized void resolved(int job, int fileReads, int entryReads, int archiveCount) throws IOException {
+        start(RESOLVED, job);
+        record.writeInt(fileReads);
+        record.writeInt(entryReads);
+        record.writeInt(archiveCount);
+        end(false);
+    }
+
+    /**
+     * Writes the result of a job, which is the last record of the job.  The output is
+     * flushed so the mojo can process the job right away.
+     */
+    public synchronized void exit(int job, int result) throws IOException {
+        start(EXIT, job);
+        record.writeInt(result);
+        end(true);
+    }
+
+    private void start(byte type, int job) throws IOException {
+        buffer.reset();
+        record.writeByte(type);
+        record.writeInt(job);
+    }
+
+    private void end(boolean flush) throws IOException {
+        out.writeInt(buffer.size());
+        buffer.writeTo(out);
+        if (flush) {
+            out.flush();
+        }
+    }
+
+    private void writeString(String s) throws IOException {
+        byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        record.writeInt(bytes.length);
+        record.write(bytes);
+    }
+}
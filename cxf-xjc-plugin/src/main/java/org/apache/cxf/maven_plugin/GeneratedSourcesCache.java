@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Content addressed cache of generated sources that is shared by all builds on a machine.
+ * An entry is found by a key over everything that is known before XJC runs: the arguments,
+ * the content of the root schemas, binding files and catalog, and the plugin versions.
+ * Every entry also records the digests of all documents the run loaded; it is only used if
+ * those documents are unchanged.
+ * <p>
+ * Locations below the project base directory and the local repository are stored relative
+ * to them, so clean workspaces in other directories share the entries.
+ */
+class GeneratedSourcesCache {
+    static final String CLOSURE = "closure";
+    static final String FILES = "files";
+
+    private final File directory;
+    private final HttpSchemaCache schemaCache;
+    private final Map<String, String> prefixes = new LinkedHashMap<>();
+    private final Map<String, String> roots = new LinkedHashMap<>();
+
+    GeneratedSourcesCache(File directory) {
+        this(directory, null);
+    }
+
+    GeneratedSourcesCache(File directory, HttpSchemaCache schemaCache) {
+        this.directory = directory;
+        this.schemaCache = schemaCache;
+    }
+
+    /**
+     * Stores locations starting with the given directory relative to a named placeholder.
+     */
+    void addRoot(String placeholder, File root) {
+        String uri = root.getAbsoluteFile().toURI().toString();
+        uri = uri.endsWith("/") ? uri : uri + "/";
+        prefixes.put(uri, placeholder + "/");
+        roots.put(placeholder + "/", uri);
+        prefixes.put(root.getAbsolutePath() + File.separator, placeholder + "/");
+    }
+
+    String normalize(String s) {
+        for (Map.Entry<String, String> prefix : prefixes.entrySet()) {
+            s = s.replace(prefix.getKey(), prefix.getValue());
+        }
+        return s;
+    }
+
+    String denormalize(String s) {
+        for (Map.Entry<String, String> root : roots.entrySet()) {
+            if (s.startsWith(root.getKey())) {
+                return root.getValue() + s.substring(root.getKey().length());
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Copies the sources of a matching entry to the output directory.  Returns the locations
+     * of the documents loaded by the run that created the entry, or null if there is none.
+     */
+    List<String> restore(String key, File outputDir) throws IOException {
+        return restore(key, outputDir, new ArrayList<String>());
+    }
+
+    /**
+     * Like {@link #restore(String, File)}, adds the paths of the restored files relative to the
+     * output directory to the given collection.
+     */
+    List<String> restore(String key, File outputDir, Collection<String> files) throws IOException {
+        File[] entries = new File(directory, key).listFiles();
+        if (entries == null) {
+            return null;
+        }
+        for (File entry : entries) {
+            SortedMap<String, String> closure = readClosure(new File(entry, CLOSURE));
+            if (closure == null || !isCurrent(closure)) {
+                continue;
+            }
+            copyDir(new File(entry, FILES).toPath(), outputDir.toPath(), files);
+            List<String> loaded = new ArrayList<>(closure.size());
+            for (String location : closure.keySet()) {
+                loaded.add(denormalize(location));
+            }
+            return loaded;
+        }
+        return null;
+    }
+
+    /**
+     * Adds the sources a run generated to the cache, together with the digests of the
+     * documents it loaded.
+     */
+    void store(String key, File generated, Collection<String> loaded) throws IOException {
+        if (loaded.isEmpty()) {
+            return;
+        }
+        SortedMap<String, String> closure = new TreeMap<>();
+        StringBuilder b = new StringBuilder();
+        for (String location : loaded) {
+            closure.put(normalize(location), SchemaFingerprint.digest(location, schemaCache));
+        }
+        for (Map.Entry<String, String> e : closure.entrySet()) {
+            b.append(e.getValue()).append(' ').append(e.getKey()).append('\n');
+        }
+        File keyDir = new File(directory, key);
+        File entry = new File(keyDir, AbstractXSDToJavaMojo.hash(b.toString()));
+        if (entry.isDirectory()) {
+            return;
+        }
+        keyDir.mkdirs();
+        Path tmp = Files.createTempDirectory(keyDir.toPath(), "tmp");
+        try {
+            copyDir(generated.toPath(), tmp.resolve(FILES), new ArrayList<String>());
+            try (Writer writer = Files.newBufferedWriter(tmp.resolve(CLOSURE), StandardCharsets.UTF_8)) {
+                writer.write(b.toString());
+            }
+            Files.move(tmp, entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (!entry.isDirectory()) {
+                throw e;
+            }
+            // stored by a concurrent build
+        } finally {
+            deleteDir(tmp);
+        }
+    }
+
+    private boolean isCurrent(SortedMap<String, String> closure) {
+        for (Map.Entry<String, String> e : closure.entrySet()) {
+            if (!e.getValue().equals(SchemaFingerprint.digest(denormalize(e.getKey()), schemaCache))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static SortedMap<String, String> readClosure(File file) {
+        SortedMap<String, String> closure = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                int idx = line.indexOf(' ');
+                if (idx > 0) {
+                    closure.put(line.substring(idx + 1), line.substring(0, idx));
+                }
+                line = reader.readLine();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return closure.isEmpty() ? null : closure;
+    }
+
+    private static void copyDir(final Path source, final Path target, final Collection<String> copied)
+        throws IOException {
+        if (!Files.isDirectory(source)) {
+            Files.createDirectories(target);
+            return;
+        }
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String path = source.relativize(file).toString();
+                copied.add(path.replace(File.separatorChar, '/'));
+                Path dest = target.resolve(path);
+                if (WriteIfChangedCodeWriter.isSameContent(file, dest)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Files.createDirectories(dest.getParent());
+                Files.copy(file, dest, StandardCopyOption.REPLACE_EXISTING);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void deleteDir(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException e) throws IOException {
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
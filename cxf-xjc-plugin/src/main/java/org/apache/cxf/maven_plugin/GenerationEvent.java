@@ -0,0 +1,171 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Flight Recorder event type for a phase of a generation run, so a recording of a build
+ * shows where the time goes: catalogs, parsing, code generation, the plugins and writing.
+ * The plugin is compiled for Java 8, so the event types are created through
+ * {@code jdk.jfr.EventFactory} by reflection if the JVM provides it; otherwise the events
+ * do nothing.  Unless a recording is running, e.g. because Maven was started with
+ * {@code -XX:StartFlightRecording}, an event costs next to nothing.
+ */
+final class GenerationEvent {
+    static final GenerationEvent CATALOG_SETUP =
+        new GenerationEvent("CatalogSetup", "Catalog Setup", "Parsing and indexing an XML catalog",
+                            "schema", String.class, "catalog", String.class);
+    static final GenerationEvent LOAD_MODEL =
+        new GenerationEvent("LoadModel", "Load Model", "Parsing the schemas and binding files into the model",
+                            "schema", String.class, "documentsRead", int.class);
+    static final GenerationEvent GENERATE_CODE =
+        new GenerationEvent("GenerateCode", "Generate Code", "Generating the code model, including the plugins",
+                            "schema", String.class);
+    static final GenerationEvent PLUGIN_RUN =
+        new GenerationEvent("PluginRun", "Plugin Run", "Running an XJC plugin on the code model",
+                            "schema", String.class, "plugin", String.class, "pluginClass", String.class);
+    static final GenerationEvent BUILD_CODE =
+        new GenerationEvent("BuildCode", "Build Code", "Writing the generated files",
+                            "schema", String.class, "files", int.class, "unchangedFiles", int.class);
+
+    private final Object factory;
+
+    /**
+     * Creates the event type with the given name, label and description, followed by the
+     * names and types of its fields.
+     */
+    private GenerationEvent(String name, String label, String description, Object... fields) {
+        Object f = null;
+        if (Api.NEW_EVENT != null) {
+            try {
+                f = createFactory(name, label, description, fields);
+            } catch (Throwable t) {
+                f = null;
+            }
+        }
+        factory = f;
+    }
+
+    /**
+     * Starts timing an event.  Returns null if events are not available.
+     */
+    Object begin() {
+        if (factory == null) {
+            return null;
+        }
+        try {
+            Object event = Api.NEW_EVENT.invoke(factory);
+            Api.BEGIN.invoke(event);
+            return event;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Ends the event started by {@link #begin()} and commits it with the given field values,
+     * if a recording wants it.
+     */
+    void commit(Object event, Object... values) {
+        if (event == null) {
+            return;
+        }
+        try {
+            if ((Boolean)Api.SHOULD_COMMIT.invoke(event)) {
+                for (int x = 0; x < values.length; x++) {
+                    Api.SET.invoke(event, x, values[x]);
+                }
+                Api.COMMIT.invoke(event);
+            }
+        } catch (Exception e) {
+            // the event is lost, the run is not affected
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object createFactory(String name, String label, String description, Object... fields)
+        throws Exception {
+        Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+        Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor");
+        Constructor<?> newAnnotation = annotationElement.getConstructor(Class.class, Object.class);
+        Constructor<?> newField = valueDescriptor.getConstructor(Class.class, String.class, List.class);
+        Class<? extends Annotation> nameType = (Class<? extends Annotation>)Class.forName("jdk.jfr.Name");
+        Class<? extends Annotation> labelType = (Class<? extends Annotation>)Class.forName("jdk.jfr.Label");
+        Class<? extends Annotation> descriptionType =
+            (Class<? extends Annotation>)Class.forName("jdk.jfr.Description");
+        Class<? extends Annotation> categoryType = (Class<? extends Annotation>)Class.forName("jdk.jfr.Category");
+
+        List<Object> annotations = new ArrayList<>();
+        annotations.add(newAnnotation.newInstance(nameType, "org.apache.cxf.xjc." + name));
+        annotations.add(newAnnotation.newInstance(labelType, label));
+        annotations.add(newAnnotation.newInstance(descriptionType, description));
+        annotations.add(newAnnotation.newInstance(categoryType, new String[] {"CXF", "XJC"}));
+        // the stack trace would only show this class
+        annotations.add(newAnnotation.newInstance(Class.forName("jdk.jfr.StackTrace"), false));
+        List<Object> descriptors = new ArrayList<>();
+        for (int x = 0; x < fields.length; x += 2) {
+            String field = (String)fields[x];
+            String fieldLabel = Character.toUpperCase(field.charAt(0))
+                + field.substring(1).replaceAll("([A-Z])", " $1");
+            descriptors.add(newField.newInstance(fields[x + 1], field, Collections.singletonList(
+                newAnnotation.newInstance(labelType, fieldLabel))));
+        }
+        return Class.forName("jdk.jfr.EventFactory").getMethod("create", List.class, List.class)
+            .invoke(null, annotations, descriptors);
+    }
+
+    /**
+     * The methods of the Flight Recorder API, or null if it is not available.
+     */
+    private static final class Api {
+        static final Method NEW_EVENT;
+        static final Method BEGIN;
+        static final Method SET;
+        static final Method SHOULD_COMMIT;
+        static final Method COMMIT;
+        static {
+            Method[] methods = new Method[5];
+            try {
+                Class<?> event = Class.forName("jdk.jfr.Event");
+                methods[0] = Class.forName("jdk.jfr.EventFactory").getMethod("newEvent");
+                methods[1] = event.getMethod("begin");
+                methods[2] = event.getMethod("set", int.class, Object.class);
+                methods[3] = event.getMethod("shouldCommit");
+                methods[4] = event.getMethod("commit");
+            } catch (Throwable t) {
+                Arrays.fill(methods, null);
+            }
+            NEW_EVENT = methods[0];
+            BEGIN = methods[1];
+            SET = methods[2];
+            SHOULD_COMMIT = methods[3];
+            COMMIT = methods[4];
+        }
+
+        private Api() {
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single XJC run the mojo has decided to perform: the option, the schemas that
+ * are compiled and the marker that is written once it succeeds.
+ */
+class GenerationTask {
+    final XsdOption option;
+    /**
+     * The xsd, or the xsdDir if all schemas of a directory are compiled together.
+     */
+    final String xsdFile;
+    final String[] xsdFiles;
+    final File doneFile;
+
+    /**
+     * The schemas and binding files the run loaded, including all imports and includes.
+     */
+    final List<String> loadedSchemas = new ArrayList<>();
+
+    /**
+     * The files the run generated, relative to the output directory and separated by '/'.
+     */
+    final List<String> generatedFiles = new ArrayList<>();
+
+    /**
+     * The tasks compiled by this one in batch mode.  A batched task has no marker of its own.
+     */
+    final List<GenerationTask> batched = new ArrayList<>();
+    boolean stale;
+
+    /**
+     * Milliseconds spent on parsing, code generation and writing, the number of files generated
+     * and how many of them already had the generated content.
+     */
+    long parseTime;
+    long generateTime;
+    long writeTime;
+    int fileCount;
+    int unchangedCount;
+
+    /**
+     * Milliseconds the plugins ran, by their option.
+     */
+    final Map<String, Long> pluginTimes = new LinkedHashMap<>();
+
+    /**
+     * The local files, jar entries and jars the run read its documents from.
+     */
+    int fileReads;
+    int entryReads;
+    int archiveCount;
+
+    /**
+     * Directory the run writes to when it does not write to the output directory directly.
+     */
+    File stagingDir;
+    DeferredBuildContext context;
+
+    /**
+     * Whether the generated files were written through the build context, which refreshes
+     * them, so the output directory does not have to be refreshed as a whole.
+     */
+    boolean outputRefreshed;
+
+    /**
+     * Whether the run succeeded and its marker was written.
+     */
+    boolean completed;
+
+    /**
+     * The key of the task in the generated sources cache, if the cache is used.
+     */
+    String cacheKey;
+
+    GenerationTask(XsdOption option, String xsdFile, String[] xsdFiles, File doneFile) {
+        this.option = option;
+        this.xsdFile = xsdFile;
+        this.xsdFiles = xsdFiles;
+        this.doneFile = doneFile;
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+
+/**
+ * An on-disk cache of schemas loaded over HTTP.  Every entry keeps the ETag and
+ * Last-Modified header of the response; the first time a document is opened it is
+ * revalidated with a conditional GET, later requests are served from the cache.  In offline
+ * mode no requests are made at all and documents that are not cached cannot be opened.  If
+ * the server cannot be reached, the cached copy is used and a warning is recorded; HTTP
+ * errors are reported, even if there is a cached copy.
+ * <p>
+ * Entries are written to a temporary file and renamed, so concurrent builds and forked
+ * runners can share a cache directory.
+ */
+public class HttpSchemaCache {
+    private static final Map<String, HttpSchemaCache> CACHES = new ConcurrentHashMap<>();
+
+    private final File directory;
+    private final boolean offline;
+    private final Map<String, File> validated = new ConcurrentHashMap<>();
+    private final Queue<String> warnings = new ConcurrentLinkedQueue<>();
+
+    public HttpSchemaCache(File directory, boolean offline) {
+        this.directory = directory;
+        this.offline = offline;
+    }
+
+    /**
+     * Returns the cache for the given directory shared by all runs in this class loader, so
+     * a forked runner or a daemon revalidates each document once and not for every schema.
+     */
+    public static HttpSchemaCache get(File directory, boolean offline) {
+        return CACHES.computeIfAbsent(directory.getAbsolutePath() + (offline ? " offline" : ""),
+            k -> new HttpSchemaCache(directory, offline));
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * Returns the warnings about stale copies that were used since the last call.
+     */
+    public List<String> takeWarnings() {
+        List<String> list = new ArrayList<>();
+        String warning = warnings.poll();
+        while (warning != null) {
+            list.add(warning);
+            warning = warnings.poll();
+        }
+        return list;
+    }
+
+    public static boolean isRemote(String location) {
+        return location.startsWith("http:") || location.startsWith("https:");
+    }
+
+    /**
+     * Opens the document at the given location.  Documents that are not loaded over HTTP are
+     * read directly.
+     */
+    public InputStream open(String location) throws IOException {
+        if (!isRemote(location)) {
+            return new URL(location).openStream();
+        }
+        File entry = validated.get(location);
+        if (entry == null) {
+            entry = validate(location);
+            validated.put(location, entry);
+        }
+        return readEntry(entry).body;
+    }
+
+    /**
+     * Reads the document at the given location into a stream that is rewound instead of
+     * closed, for input sources that are parsed more than once.
+     */
+    public InputStream openReusable(String location) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = open(location)) {
+            copy(in, out);
+        }
+        return new ByteArrayInputStream(out.toByteArray()) {
+            @Override
+            public void close() {
+                reset();
+            }
+        };
+    }
+
+    /**
+     * Returns a resolver that serves remote documents from this cache if the given resolver
+     * does not resolve them.
+     */
+    public EntityResolver createEntityResolver(final EntityResolver resolver) {
+        return (publicId, systemId) -> {
+            InputSource source = resolver == null ? null : resolver.resolveEntity(publicId, systemId);
+            if (source == null && systemId != null && isRemote(systemId)) {
+                source = createInputSource(systemId);
+                source.setPublicId(publicId);
+            }
+            return source;
+        };
+    }
+
+    /**
+     * Returns an input source for a remote document reading its content from the cache.
+     */
+    public InputSource createInputSource(String systemId) throws IOException {
+        InputSource source = new InputSource(systemId);
+        source.setByteStream(open(systemId));
+        return source;
+    }
+
+    private File validate(String location) throws IOException {
+        File entry = new File(directory, AbstractXSDToJavaMojo.hash(location) + ".cache");
+        Entry cached = null;
+        if (entry.isFile()) {
+            try {
+                cached = readEntry(entry);
+                cached.body.close();
+            } catch (IOException e) {
+                // a broken entry is replaced
+            }
+        }
+        if (offline) {
+            if (cached == null || !location.equals(cached.location)) {
+                throw new IOException(location + " is not in the schema cache " + directory
+                                      + " and the build is offline");
+            }
+            return entry;
+        }
+        URLConnection connection = new URL(location).openConnection();
+        connection.setUseCaches(false);
+        if (cached != null && location.equals(cached.location)) {
+            if (!cached.etag.isEmpty()) {
+                connection.setRequestProperty("If-None-Match", cached.etag);
+            }
+            if (!cached.lastModified.isEmpty()) {
+                connection.setRequestProperty("If-Modified-Since", cached.lastModified);
+            }
+        }
+        boolean stale = cached != null && location.equals(cached.location);
+        int status;
+        try {
+            status = connection instanceof HttpURLConnection ? ((HttpURLConnection)connection).getResponseCode() : 0;
+        } catch (IOException e) {
+            if (!stale) {
+                throw e;
+            }
+            // the server is not reachable, use what we have
+            warnings.add("Could not connect to revalidate " + location + ", using the copy in the schema cache: " + e);
+            return entry;
+        }
+        if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            return entry;
+        }
+        if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+            throw new IOException("Server returned HTTP response code " + status + " for " + location);
+        }
+        try (InputStream in = connection.getInputStream()) {
+            writeEntry(entry, location, connection, in);
+        } catch (IOException e) {
+            if (!stale) {
+                throw e;
+            }
+            // the connection broke, use what we have
+            warnings.add("Could not read " + location + ", using the copy in the schema cache: " + e);
+        }
+        return entry;
+    }
+
+    private void writeEntry(File entry, String location, URLConnection connection, InputStream in)
+        throws IOException {
+        directory.mkdirs();
+        File tmp = File.createTempFile("schema", ".tmp", directory);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeUTF(location);
+                out.writeUTF(valueOf(connection.getHeaderField("ETag")));
+                out.writeUTF(valueOf(connection.getHeaderField("Last-Modified")));
+                copy(in, out);
+            }
+            Files.move(tmp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    private static Entry readEntry(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            return new Entry(in.readUTF(), in.readUTF(), in.readUTF(), in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static String valueOf(String s) {
+        return s == null ? "" : s;
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buf = new byte[8192];
+        int len = in.read(buf);
+        while (len != -1) {
+            out.write(buf, 0, len);
+            len = in.read(buf);
+        }
+    }
+
+    private static final class Entry {
+        final String location;
+        final String etag;
+        final String lastModified;
+        final InputStream body;
+
+        Entry(String location, String etag, String lastModified, InputStream body) {
+            this.location = location;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+    }
+}
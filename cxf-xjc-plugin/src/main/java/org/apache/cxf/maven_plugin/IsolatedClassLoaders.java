@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class loaders for running XJC in the Maven JVM, isolated from the plugin and Maven class
+ * loaders.  They only see the JDK and the given classpath, so the XJC and JAXB versions of
+ * the plugin are used regardless of what Maven or other plugins bring along.  The loaders are
+ * kept for the lifetime of the plugin realm, so all modules of a build share a warm XJC.
+ */
+final class IsolatedClassLoaders {
+    private static final int MAX_LOADERS = 4;
+
+    private static final Map<String, URLClassLoader> LOADERS =
+        new LinkedHashMap<String, URLClassLoader>(8, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, URLClassLoader> eldest) {
+                if (size() > MAX_LOADERS) {
+                    try {
+                        eldest.getValue().close();
+                    } catch (IOException e) {
+                        // ignore
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+
+    private IsolatedClassLoaders() {
+    }
+
+    /**
+     * Returns the loader for the given key, creating it with the given classpath if needed.
+     */
+    static synchronized ClassLoader get(String key, URL[] classPath) {
+        URLClassLoader loader = LOADERS.get(key);
+        if (loader == null) {
+            loader = new URLClassLoader(classPath, getPlatformClassLoader());
+            LOADERS.put(key, loader);
+        }
+        return loader;
+    }
+
+    /**
+     * The current loaders by their keys, the most recently used last.
+     */
+    static synchronized Map<String, ClassLoader> getLoaders() {
+        return new LinkedHashMap<String, ClassLoader>(LOADERS);
+    }
+
+    /**
+     * The parent of the isolated loaders: the platform class loader on Java 9 and later, the
+     * boot class loader before.
+     */
+    private static ClassLoader getPlatformClassLoader() {
+        try {
+            return (ClassLoader)ClassLoader.class.getMethod("getPlatformClassLoader").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
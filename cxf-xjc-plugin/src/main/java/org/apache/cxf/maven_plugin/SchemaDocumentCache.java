@@ -0,0 +1,321 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.LocatorImpl;
+
+/**
+ * Keeps the SAX events of the schema documents parsed in this JVM, so runs importing the
+ * same documents do not parse them again.  The DOM forest of XJC is patched to call
+ * {@link #parse(XMLReader, InputSource)} instead of parsing directly; documents with the same
+ * system id and content are replayed into the forest, including the locations of all events.
+ * The forest builds a fresh DOM from them, as XJC modifies the DOM while applying bindings.
+ * <p>
+ * Documents that caused warnings or errors are not kept, so their messages are reported
+ * again.  The events are evicted least recently used first once they take more than a tenth
+ * of the heap.
+ */
+public final class SchemaDocumentCache {
+    private static final long MAX_SIZE = Runtime.getRuntime().maxMemory() / 10;
+
+    private static final Map<String, Recording> RECORDINGS = new LinkedHashMap<>(64, 0.75f, true);
+    private static final AtomicInteger HITS = new AtomicInteger();
+    private static final AtomicInteger MISSES = new AtomicInteger();
+    private static long size;
+
+    private SchemaDocumentCache() {
+    }
+
+    /**
+     * Parses the document with the given reader, or replays its events into the content
+     * handler of the reader.
+     */
+    public static void parse(XMLReader reader, InputSource source) throws IOException, SAXException {
+        String systemId = source.getSystemId();
+        if (systemId == null || source.getCharacterStream() != null) {
+            reader.parse(source);
+            return;
+        }
+        byte[] content = read(source);
+        String key = systemId + ' ' + digest(content);
+        Recording recording = get(key);
+        if (recording != null) {
+            HITS.incrementAndGet();
+            recording.replay(reader.getContentHandler(), source.getPublicId(), systemId);
+            return;
+        }
+        MISSES.incrementAndGet();
+
+        final Recorder recorder = new Recorder(reader.getContentHandler());
+        final ErrorHandler errorHandler = reader.getErrorHandler();
+        reader.setContentHandler(recorder);
+        reader.setErrorHandler(new ErrorHandler() {
+            public void warning(SAXParseException e) throws SAXException {
+                recorder.failed = true;
+                if (errorHandler != null) {
+                    errorHandler.warning(e);
+                }
+            }
+            public void error(SAXParseException e) throws SAXException {
+                recorder.failed = true;
+                if (errorHandler != null) {
+                    errorHandler.error(e);
+                }
+            }
+            public void fatalError(SAXParseException e) throws SAXException {
+                recorder.failed = true;
+                if (errorHandler != null) {
+                    errorHandler.fatalError(e);
+                }
+            }
+        });
+        InputSource copy = new InputSource(systemId);
+        copy.setPublicId(source.getPublicId());
+        copy.setEncoding(source.getEncoding());
+        copy.setByteStream(new ByteArrayInputStream(content));
+        reader.parse(copy);
+        if (!recorder.failed) {
+            put(key, recorder.recording);
+        }
+    }
+
+    static int getHits() {
+        return HITS.get();
+    }
+
+    static int getMisses() {
+        return MISSES.get();
+    }
+
+    private static synchronized Recording get(String key) {
+        return RECORDINGS.get(key);
+    }
+
+    private static synchronized void put(String key, Recording recording) {
+        Recording old = RECORDINGS.put(key, recording);
+        size += recording.size - (old == null ? 0 : old.size);
+        Iterator<Recording> it = RECORDINGS.values().iterator();
+        while (size > MAX_SIZE && it.hasNext()) {
+            size -= it.next().size;
+            it.remove();
+        }
+    }
+
+    private static byte[] read(InputSource source) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16384);
+        try (InputStream in = source.getByteStream() != null
+            ? source.getByteStream() : SchemaFileSystems.open(source.getSystemId(), null)) {
+            byte[] buf = new byte[8192];
+            int len = in.read(buf);
+            while (len != -1) {
+                out.write(buf, 0, len);
+                len = in.read(buf);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static String digest(byte[] content) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder b = new StringBuilder(digest.length * 2);
+        for (byte by : digest) {
+            b.append(Character.forDigit((by >> 4) & 0xF, 16)).append(Character.forDigit(by & 0xF, 16));
+        }
+        return b.toString();
+    }
+
+    private static final class Recording {
+        final List<Event> events = new ArrayList<>();
+        long size;
+
+        void replay(ContentHandler handler, String publicId, String systemId) throws SAXException {
+            LocatorImpl locator = new LocatorImpl();
+            locator.setPublicId(publicId);
+            locator.setSystemId(systemId);
+            handler.setDocumentLocator(locator);
+            for (Event event : events) {
+                locator.setLineNumber(event.line);
+                locator.setColumnNumber(event.column);
+                event.replay(handler);
+            }
+        }
+    }
+
+    private abstract static class Event {
+        int line;
+        int column;
+
+        abstract void replay(ContentHandler handler) throws SAXException;
+    }
+
+    /**
+     * Passes the events on to the forest and records them with their locations.
+     */
+    private static final class Recorder implements ContentHandler {
+        final ContentHandler handler;
+        final Recording recording = new Recording();
+        Locator locator;
+        boolean failed;
+
+        Recorder(ContentHandler handler) {
+            this.handler = handler;
+        }
+
+        private void add(Event event, long eventSize) {
+            if (locator != null) {
+                event.line = locator.getLineNumber();
+                event.column = locator.getColumnNumber();
+            }
+            recording.events.add(event);
+            recording.size += 48 + eventSize;
+        }
+
+        public void setDocumentLocator(Locator l) {
+            locator = l;
+            handler.setDocumentLocator(l);
+        }
+
+        public void startDocument() throws SAXException {
+            add(new Event() {
+                void replay(ContentHandler h) throws SAXException {
+                    h.startDocument();
+                }
+            }, 0);
+            handler.startDocument();
+        }
+
+        public void endDocument() throws SAXException {
+            add(new Event() {
+                void replay(ContentHandler h) throws SAXException {
+                    h.endDocument();
+                }
+            }, 0);
+            handler.endDocument();
+        }
+
+        public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+            add(new Event() {
+                void replay(ContentHandler h) throws SAXException {
+                    h.startPrefixMapping(prefix, uri);
+                }
+            }, 2L * (prefix.length() + uri.length()));
+            handler.startPrefixMapping(prefix, uri);
+        }
+
+        public void endPrefixMapping(final String prefix) throws SAXException {
+            add(new Event() {
+                void replay(ContentHandler h) throws SAXException {
+                    h.endPrefixMapping(prefix);
+                }
+            }, 2L * prefix.length());
+            handler.endPrefixMapping(prefix);
+        }
+
+        public void startElement(final String uri, final String localName, final String qName,
+                                 Attributes atts) throws SAXException {
+            final Attributes copy = new AttributesImpl(atts);
+            long attsSize = 0;
+            for (int x = 0; x < atts.getLength(); x++) {
+                attsSize += 64 + 2L * (atts.getQName(x).length() + atts.getValue(x).length());
+            }
+            add(new Event() {
+                void replay(ContentHandler h) throws SAXException {
+                    h.startElement(uri, localName, qName, copy);
+                }
+            }, attsSize + 2L * qName.length());
+            handler.startElement(uri, localName, qName, atts);
+        }
+
+        public void endElement(final String uri, final String localName, final String qName)
+            throws SAXException {
+            add(new Event() {
+                void replay(ContentHandler h) throws SAXException {
+                    h.endElement(uri, localName, qName);
+                }
+            }, 0);
+            handler.endElement(uri, localName, qName);
+        }
+
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            final char[] copy = Arrays.copyOfRange(ch, start, start + length);
+            add(new Event() {
+                void replay(ContentHandler h) throws SAXException {
+                    h.characters(copy, 0, copy.length);
+                }
+            }, 2L * length);
+            handler.characters(ch, start, length);
+        }
+
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            final char[] copy = Arrays.copyOfRange(ch, start, start + length);
+            add(new Event() {
+                void replay(ContentHandler h) throws SAXException {
+                    h.ignorableWhitespace(copy, 0, copy.length);
+                }
+            }, 2L * length);
+            handler.ignorableWhitespace(ch, start, length);
+        }
+
+        public void processingInstruction(final String target, final String data) throws SAXException {
+            add(new Event() {
+                void replay(ContentHandler h) throws SAXException {
+                    h.processingInstruction(target, data);
+                }
+            }, 2L * (target.length() + (data == null ? 0 : data.length())));
+            handler.processingInstruction(target, data);
+        }
+
+        public void skippedEntity(final String name) throws SAXException {
+            add(new Event() {
+                void replay(ContentHandler h) throws SAXException {
+                    h.skippedEntity(name);
+                }
+            }, 2L * name.length());
+            handler.skippedEntity(name);
+        }
+    }
+}
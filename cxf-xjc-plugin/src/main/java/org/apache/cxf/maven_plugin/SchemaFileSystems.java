@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.ProviderNotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads local schema documents through NIO.  file: locations are read directly and jar:
+ * locations through one zip file system per jar that stays open until this object is closed,
+ * so the central directory of a jar with hundreds of schemas is only read once.  Other
+ * locations are read through their URL.  Files are not memory mapped: a mapping cannot be
+ * released before it is garbage collected and would keep the schemas locked on Windows,
+ * where they are edited while the IDE builds.
+ */
+final class SchemaFileSystems implements Closeable {
+    /**
+     * The file systems of the run or up-to-date check on the current thread, if any.
+     */
+    static final ThreadLocal<SchemaFileSystems> CURRENT = new ThreadLocal<>();
+
+    private final Map<Path, FileSystem> archives = new HashMap<>();
+    private int fileCount;
+    private int entryCount;
+    private int otherCount;
+
+    /**
+     * Opens the document at the given location with the file systems of the current thread.
+     * Remote documents are read through the schema cache, if there is one.
+     */
+    static InputStream open(String location, HttpSchemaCache schemaCache) throws IOException {
+        if (schemaCache != null && HttpSchemaCache.isRemote(location)) {
+            return schemaCache.open(location);
+        }
+        SchemaFileSystems fileSystems = CURRENT.get();
+        if (fileSystems != null) {
+            return fileSystems.open(location);
+        }
+        return location.startsWith("file:")
+            ? Files.newInputStream(Paths.get(URI.create(location))) : new URL(location).openStream();
+    }
+
+    InputStream open(String location) throws IOException {
+        try {
+            if (location.startsWith("file:")) {
+                InputStream in = Files.newInputStream(Paths.get(URI.create(location)));
+                fileCount++;
+                return in;
+            }
+            int bang = location.indexOf("!/");
+            if (location.startsWith("jar:file:") && bang != -1 && location.indexOf("!/", bang + 2) == -1) {
+                InputStream in = Files.newInputStream(getArchive(location.substring(4, bang))
+                    .getPath(URI.create(location.substring(bang + 1)).getPath()));
+                entryCount++;
+                return in;
+            }
+        } catch (IllegalArgumentException | ProviderNotFoundException e) {
+            // not a location NIO can read, e.g. a UNC path or a JDK without the zip file system
+        }
+        otherCount++;
+        return new URL(location).openStream();
+    }
+
+    private FileSystem getArchive(String jarLocation) throws IOException {
+        Path jar = Paths.get(URI.create(jarLocation)).toAbsolutePath();
+        FileSystem fs = archives.get(jar);
+        if (fs == null) {
+            // not registered with the provider, so concurrent runs each get their own
+            fs = FileSystems.newFileSystem(jar, (ClassLoader)null);
+            archives.put(jar, fs);
+        }
+        return fs;
+    }
+
+    int getFileCount() {
+        return fileCount;
+    }
+
+    int getEntryCount() {
+        return entryCount;
+    }
+
+    int getArchiveCount() {
+        return archives.size();
+    }
+
+    @Override
+    public String toString() {
+        return fileCount + " files, " + entryCount + " entries of " + archives.size() + " jars and "
+            + otherCount + " other documents";
+    }
+
+    @Override
+    public void close() {
+        for (FileSystem fs : archives.values()) {
+            try {
+                fs.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+        archives.clear();
+    }
+}
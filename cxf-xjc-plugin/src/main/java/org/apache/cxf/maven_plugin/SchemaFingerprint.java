@@ -0,0 +1,196 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * SHA-256 fingerprint of everything a generation run depends on: the content of every
+ * schema it loaded, the binding files, the catalog and the XJC arguments.  The fingerprint
+ * is stored in the ".DONE" marker and a run is only repeated when it changes.
+ */
+public class SchemaFingerprint {
+    static final String HEADER = "# cxf-xjc-plugin fingerprint";
+    static final String ARGUMENTS_KEY = "#arguments";
+    static final String MISSING = "missing";
+
+    private final SortedMap<String, String> entries = new TreeMap<>();
+    private final HttpSchemaCache schemaCache;
+
+    public SchemaFingerprint() {
+        this(null);
+    }
+
+    /**
+     * Creates a fingerprint that reads remote documents through the given cache.
+     */
+    public SchemaFingerprint(HttpSchemaCache schemaCache) {
+        this.schemaCache = schemaCache;
+    }
+
+    /**
+     * Adds the digest of the content of the document at the given location.  Documents that
+     * cannot be read are recorded as missing, so they count as a change once they appear.
+     */
+    public void addLocation(String location) {
+        if (location != null && !entries.containsKey(location)) {
+            entries.put(location, digest(location, schemaCache));
+        }
+    }
+
+    public void addLocations(Collection<String> locations) {
+        for (String location : locations) {
+            addLocation(location);
+        }
+    }
+
+    public void addFile(File file) {
+        addLocation(file.getAbsoluteFile().toURI().toString());
+    }
+
+    public void addArguments(Collection<String> args) {
+        entries.put(ARGUMENTS_KEY, digestArguments(args));
+    }
+
+    /**
+     * Whether this fingerprint was created with the given arguments.
+     */
+    public boolean hasArguments(Collection<String> args) {
+        return digestArguments(args).equals(entries.get(ARGUMENTS_KEY));
+    }
+
+    private static String digestArguments(Collection<String> args) {
+        StringBuilder b = new StringBuilder();
+        for (String arg : args) {
+            b.append(arg).append('\n');
+        }
+        return toHex(newDigest().digest(b.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * The locations of all documents recorded in this fingerprint.
+     */
+    public Collection<String> getLocations() {
+        SortedMap<String, String> locations = new TreeMap<>(entries);
+        locations.remove(ARGUMENTS_KEY);
+        return locations.keySet();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Reads the fingerprint stored in a marker file.  Returns null if the marker does not
+     * exist or does not contain a fingerprint, e.g. when written by an older version.
+     */
+    public static SchemaFingerprint read(File marker) {
+        if (!marker.isFile()) {
+            return null;
+        }
+        SchemaFingerprint fingerprint = new SchemaFingerprint();
+        try (BufferedReader reader = Files.newBufferedReader(marker.toPath(), StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (!HEADER.equals(line)) {
+                return null;
+            }
+            line = reader.readLine();
+            while (line != null) {
+                int idx = line.indexOf(' ');
+                if (idx > 0) {
+                    fingerprint.entries.put(line.substring(idx + 1), line.substring(0, idx));
+                }
+                line = reader.readLine();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return fingerprint.isEmpty() ? null : fingerprint;
+    }
+
+    public void write(File marker) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(marker.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                writer.write(entry.getValue());
+                writer.write(' ');
+                writer.write(entry.getKey());
+                writer.write('\n');
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SchemaFingerprint && entries.equals(((SchemaFingerprint)o).entries);
+    }
+
+    @Override
+    public int hashCode() {
+        return entries.hashCode();
+    }
+
+    static String digest(String location) {
+        return digest(location, null);
+    }
+
+    static String digest(String location, HttpSchemaCache schemaCache) {
+        MessageDigest digest = newDigest();
+        try (InputStream in = SchemaFileSystems.open(location, schemaCache)) {
+            byte[] buf = new byte[8192];
+            int len = in.read(buf);
+            while (len != -1) {
+                digest.update(buf, 0, len);
+                len = in.read(buf);
+            }
+        } catch (IOException | RuntimeException e) {
+            return MISSING;
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder b = new StringBuilder(bytes.length * 2);
+        for (byte by : bytes) {
+            b.append(Character.forDigit((by >> 4) & 0xF, 16)).append(Character.forDigit(by & 0xF, 16));
+        }
+        return b.toString();
+    }
+}
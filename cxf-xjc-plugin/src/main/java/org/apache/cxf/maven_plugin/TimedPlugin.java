@@ -0,0 +1,96 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+
+import com.sun.tools.xjc.BadCommandLineException;
+import com.sun.tools.xjc.Options;
+import com.sun.tools.xjc.Plugin;
+import com.sun.tools.xjc.model.Model;
+import com.sun.tools.xjc.outline.Outline;
+
+/**
+ * Wraps an active plugin while the code is generated to record how long it runs, as a
+ * {@link GenerationEvent#PLUGIN_RUN} event and in milliseconds per option name.
+ */
+class TimedPlugin extends Plugin {
+    private final Plugin plugin;
+    private final String schema;
+    private final Map<String, Long> times;
+
+    TimedPlugin(Plugin plugin, String schema, Map<String, Long> times) {
+        this.plugin = plugin;
+        this.schema = schema;
+        this.times = times;
+    }
+
+    @Override
+    public String getOptionName() {
+        return plugin.getOptionName();
+    }
+
+    @Override
+    public String getUsage() {
+        return plugin.getUsage();
+    }
+
+    @Override
+    public int parseArgument(Options opt, String[] args, int i) throws BadCommandLineException, IOException {
+        return plugin.parseArgument(opt, args, i);
+    }
+
+    @Override
+    public List<String> getCustomizationURIs() {
+        return plugin.getCustomizationURIs();
+    }
+
+    @Override
+    public boolean isCustomizationTagName(String nsUri, String localName) {
+        return plugin.isCustomizationTagName(nsUri, localName);
+    }
+
+    @Override
+    public void onActivated(Options opts) throws BadCommandLineException {
+        plugin.onActivated(opts);
+    }
+
+    @Override
+    public void postProcessModel(Model model, ErrorHandler errorHandler) {
+        plugin.postProcessModel(model, errorHandler);
+    }
+
+    @Override
+    public boolean run(Outline outline, Options opt, ErrorHandler errorHandler) throws SAXException {
+        Object event = GenerationEvent.PLUGIN_RUN.begin();
+        long start = System.nanoTime();
+        try {
+            return plugin.run(outline, opt, errorHandler);
+        } finally {
+            String name = "-" + plugin.getOptionName();
+            times.merge(name, (System.nanoTime() - start) / 1000000L, Long::sum);
+            GenerationEvent.PLUGIN_RUN.commit(event, schema, name, plugin.getClass().getName());
+        }
+    }
+}
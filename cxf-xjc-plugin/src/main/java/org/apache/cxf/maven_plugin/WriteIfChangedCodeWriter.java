@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+/**
+ * Writes the generated files to a directory, but leaves files that already have the
+ * generated content untouched.  Their timestamps do not change, so incremental compilers
+ * only recompile the classes whose sources actually changed.  The time stamps XJC puts into
+ * the file header and the {@code @Generated} annotations are ignored when comparing.
+ */
+public class WriteIfChangedCodeWriter extends CodeWriter {
+    private static final Pattern TIMESTAMPS =
+        Pattern.compile("^// Generated on: .*$|\\bdate = \"[^\"]*\"", Pattern.MULTILINE);
+
+    private final File target;
+    private final boolean readOnly;
+    private final BuildContext context;
+    private final List<String> files = new ArrayList<>();
+    private int changedCount;
+    private int unchangedCount;
+
+    public WriteIfChangedCodeWriter(File target, boolean readOnly, String encoding) {
+        this(target, readOnly, encoding, null);
+    }
+
+    /**
+     * Creates a writer that writes the changed files through the given build context, so an
+     * incremental build only refreshes those.
+     */
+    public WriteIfChangedCodeWriter(File target, boolean readOnly, String encoding, BuildContext context) {
+        this.target = target;
+        this.readOnly = readOnly;
+        this.encoding = encoding;
+        this.context = context;
+    }
+
+    @Override
+    public OutputStream openBinary(JPackage pkg, String fileName) throws IOException {
+        File dir = pkg.isUnnamed() ? target : new File(target, pkg.name().replace('.', File.separatorChar));
+        final Path file = new File(dir, fileName).toPath();
+        return new ByteArrayOutputStream(8192) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    store(file, toByteArray());
+                }
+            }
+        };
+    }
+
+    private synchronized void store(Path file, byte[] content) throws IOException {
+        files.add(target.toPath().relativize(file).toString().replace(File.separatorChar, '/'));
+        if (hasContent(file, content)) {
+            unchangedCount++;
+            return;
+        }
+        Files.createDirectories(file.getParent());
+        if (Files.exists(file)) {
+            file.toFile().setWritable(true);
+        }
+        if (context != null) {
+            try (OutputStream out = context.newFileOutputStream(file.toFile())) {
+                out.write(content);
+            }
+        } else {
+            Files.write(file, content);
+        }
+        if (readOnly) {
+            file.toFile().setReadOnly();
+        }
+        changedCount++;
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    /**
+     * The number of files that were created or replaced.
+     */
+    public synchronized int getChangedCount() {
+        return changedCount;
+    }
+
+    /**
+     * The number of files that already had the generated content.
+     */
+    public synchronized int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    /**
+     * The paths of all generated files relative to the target directory, separated by '/'.
+     */
+    public synchronized List<String> getFiles() {
+        return new ArrayList<>(files);
+    }
+
+    static boolean hasContent(Path file, byte[] content) throws IOException {
+        return Files.isRegularFile(file) && isSameContent(file.getFileName().toString(),
+                                                          Files.readAllBytes(file), content);
+    }
+
+    /**
+     * Checks whether two generated files have the same content.
+     */
+    static boolean isSameContent(Path file, Path other) throws IOException {
+        return Files.isRegularFile(other) && isSameContent(file.getFileName().toString(),
+                                                           Files.readAllBytes(file), Files.readAllBytes(other));
+    }
+
+    private static boolean isSameContent(String fileName, byte[] content, byte[] other) {
+        if (Arrays.equals(content, other)) {
+            return true;
+        }
+        if (!fileName.endsWith(".java")) {
+            return false;
+        }
+        // ISO-8859-1 maps every byte to a char, the time stamps are ASCII in any encoding XJC uses
+        String s = new String(content, StandardCharsets.ISO_8859_1);
+        String o = new String(other, StandardCharsets.ISO_8859_1);
+        return TIMESTAMPS.matcher(s).replaceAll("").equals(TIMESTAMPS.matcher(o).replaceAll(""));
+    }
+}
@@ -19,86 +19,117 @@
 package org.apache.cxf.maven_plugin;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.codehaus.plexus.util.DirectoryScanner;
 import org.codehaus.plexus.util.Scanner;
 import org.sonatype.plexus.build.incremental.BuildContext;
+import org.sonatype.plexus.build.incremental.EmptyScanner;
 
+/**
+ * BuildContext of the command line and of forked runs.  Like the default BuildContext of
+ * Maven it is not incremental: every file has a delta and files are written directly.
+ * Messages are printed to the given streams, which the mojo reads when forking.
+ */
 public class XJCBuildContext implements BuildContext {
+    private final PrintStream out;
+    private final PrintStream err;
+    private final Map<String, Object> values = new HashMap<>();
+
+    public XJCBuildContext() {
+        this(System.out, System.err);
+    }
+    public XJCBuildContext(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
     public boolean hasDelta(String relpath) {
-        return false;
+        return true;
     }
     public boolean hasDelta(File file) {
-        return false;
+        return true;
     }
     public boolean hasDelta(@SuppressWarnings("rawtypes") List relpaths) {
-        return false;
+        return true;
     }
     public void refresh(File file) {
     }
 
     public OutputStream newFileOutputStream(File file) throws IOException {
-        return null;
+        File parent = file.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        return new FileOutputStream(file);
     }
     public Scanner newScanner(File basedir) {
-        return null;
+        DirectoryScanner scanner = new DirectoryScanner();
+        scanner.setBasedir(basedir);
+        return scanner;
     }
     public Scanner newDeleteScanner(File basedir) {
-        return null;
+        return new EmptyScanner(basedir);
     }
     public Scanner newScanner(File basedir, boolean ignoreDelta) {
-        return null;
+        return newScanner(basedir);
     }
     public boolean isIncremental() {
         return false;
     }
-    public void setValue(String key, Object value) {
+    public synchronized void setValue(String key, Object value) {
+        values.put(key, value);
     }
-    public Object getValue(String key) {
-        return null;
+    public synchronized Object getValue(String key) {
+        return values.get(key);
     }
     public void addWarning(File file, int line, int column, String message, Throwable cause) {
-        System.out.println("WARNING: " + file.getAbsolutePath());
-        System.out.println("Line: " + line);
-        System.out.println("Col: " + column);
-        System.out.println(message);
+        out.println("WARNING: " + file.getAbsolutePath());
+        out.println("Line: " + line);
+        out.println("Col: " + column);
+        out.println(message);
         if (cause != null) {
-            cause.printStackTrace(System.out);
+            cause.printStackTrace(out);
         }
-        System.out.println();
-        System.out.println("DONE");
+        out.println();
+        out.println("DONE");
     }
 
     @Override
     public void addError(File file, int line, int column, String message, Throwable cause) {
-        System.err.println("ERROR: " + file.getAbsolutePath());
-        System.err.println("Line: " + line);
-        System.err.println("Col: " + column);
-        System.err.println(message);
+        err.println("ERROR: " + file.getAbsolutePath());
+        err.println("Line: " + line);
+        err.println("Col: " + column);
+        err.println(message);
         if (cause != null) {
-            cause.printStackTrace(System.err);
+            cause.printStackTrace(err);
         }
-        System.err.println();
-        System.err.println("DONE");
+        err.println();
+        err.println("DONE");
     }
     public void addMessage(File file, int line, int column, String message, int severity, Throwable cause) {
-        System.out.println("MSG: " + file.getAbsolutePath());
-        System.out.println("Severity: " + severity);
-        System.out.println("Line: " + line);
-        System.out.println("Col: " + column);
-        System.out.println(message);
+        out.println("MSG: " + file.getAbsolutePath());
+        out.println("Severity: " + severity);
+        out.println("Line: " + line);
+        out.println("Col: " + column);
+        out.println(message);
         if (cause != null) {
-            cause.printStackTrace(System.out);
+            cause.printStackTrace(out);
         }
-        System.out.println();
-        System.out.println("DONE");
+        out.println();
+        out.println("DONE");
     }
     public void removeMessages(File file) {
     }
     public boolean isUptodate(File target, File source) {
-        return false;
+        return target != null && target.exists() && source != null && source.exists()
+            && target.lastModified() > source.lastModified();
     }
 
 }
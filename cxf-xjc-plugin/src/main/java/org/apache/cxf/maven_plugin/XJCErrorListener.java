@@ -38,6 +38,9 @@ public class XJCErrorListener extends ErrorReceiver {
     public XJCErrorListener(BuildContext context) {
         this.buildContext = context;
     }
+    public BuildContext getBuildContext() {
+        return buildContext;
+    }
     public Exception getFirstError() {
         return firstError;
     }
@@ -0,0 +1,220 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A long running forked runner.  It accepts generation jobs on a loopback socket, runs
+ * them with {@link XSDToJavaRunner} and sends the results back as {@link DiagnosticsWriter}
+ * records.  The port and a secret token are published in a port file; the daemon stops
+ * after being idle for the configured time.
+ */
+public final class XSDToJavaDaemon {
+    private final File portFile;
+    private final long idleTimeout;
+    private final String token;
+    private final AtomicInteger activeJobs = new AtomicInteger();
+    private final AtomicLong lastActivity = new AtomicLong(System.currentTimeMillis());
+
+    private XSDToJavaDaemon(File portFile, long idleTimeout) {
+        this.portFile = portFile;
+        this.idleTimeout = idleTimeout;
+        this.token = newToken();
+    }
+
+    /**
+     * A random token a runner has to present to show it was started by the mojo.
+     */
+    static String newToken() {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder b = new StringBuilder();
+        for (byte by : bytes) {
+            b.append(Character.forDigit((by >> 4) & 0xF, 16)).append(Character.forDigit(by & 0xF, 16));
+        }
+        return b.toString();
+    }
+
+    /**
+     * Expects the port file and the idle timeout in milliseconds.
+     */
+    public static void main(String[] args) throws Exception {
+        new XSDToJavaDaemon(new File(args[0]), Long.parseLong(args[1])).serve();
+        System.exit(0);
+    }
+
+    private void serve() throws IOException {
+        ExecutorService executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "cxf-xjc-daemon");
+            t.setDaemon(true);
+            return t;
+        });
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout((int)Math.min(idleTimeout, 10000L));
+            publish(server.getLocalPort());
+            while (true) {
+                try {
+                    final Socket socket = server.accept();
+                    activeJobs.incrementAndGet();
+                    executor.execute(() -> {
+                        try {
+                            handle(socket);
+                        } finally {
+                            lastActivity.set(System.currentTimeMillis());
+                            activeJobs.decrementAndGet();
+                        }
+                    });
+                } catch (SocketTimeoutException e) {
+                    if (activeJobs.get() == 0
+                        && System.currentTimeMillis() - lastActivity.get() >= idleTimeout) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            String published = read(portFile);
+            if (published != null && published.endsWith(" " + token)) {
+                portFile.delete();
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    private void publish(int port) throws IOException {
+        File tmp = new File(portFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            tmp.setReadable(false, false);
+            tmp.setReadable(true, true);
+            out.write((port + " " + token).getBytes(StandardCharsets.UTF_8));
+        }
+        Files.move(tmp.toPath(), portFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            if (!token.equals(in.readUTF())) {
+                return;
+            }
+            String[] args = new String[in.readInt()];
+            for (int x = 0; x < args.length; x++) {
+                args[x] = in.readUTF();
+            }
+            int size = in.readInt();
+            List<String> classPath = new ArrayList<>(size);
+            for (int x = 0; x < size; x++) {
+                classPath.add(in.readUTF());
+            }
+            XSDToJavaRunner.runJob(args, classPath, 0,
+                                   new DiagnosticsWriter(new BufferedOutputStream(s.getOutputStream())));
+        } catch (EOFException e) {
+            // a client checking that the daemon is up
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Sends a job to the daemon published in the given port file and passes the records it
+     * sends back on to the reader.  The job runs in a class loader of its own with the given
+     * project classpath, so the daemon does not hold on to the classes of a project.  Returns
+     * the result of the job.
+     *
+     * @throws IOException if no daemon is listening or the connection is lost
+     */
+    static int submit(File portFile, List<String> args, List<String> classPath, DiagnosticsReader reader)
+        throws IOException {
+        String published = read(portFile);
+        if (published == null || published.indexOf(' ') == -1) {
+            throw new IOException("No daemon published in " + portFile);
+        }
+        int port;
+        try {
+            port = Integer.parseInt(published.substring(0, published.indexOf(' ')));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid port file " + portFile, e);
+        }
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeUTF(published.substring(published.indexOf(' ') + 1));
+            out.writeInt(args.size());
+            for (String arg : args) {
+                out.writeUTF(arg);
+            }
+            out.writeInt(classPath.size());
+            for (String entry : classPath) {
+                out.writeUTF(entry);
+            }
+            out.flush();
+            reader.read(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+        }
+        if (!reader.hasResult(0)) {
+            throw new IOException("The daemon closed the connection before the job finished");
+        }
+        return reader.getResult(0);
+    }
+
+    /**
+     * Checks whether the daemon published in the given port file accepts connections.
+     */
+    public static boolean isRunning(File portFile) {
+        String published = read(portFile);
+        if (published == null || published.indexOf(' ') == -1) {
+            return false;
+        }
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                                        Integer.parseInt(published.substring(0, published.indexOf(' '))))) {
+            return true;
+        } catch (IOException | NumberFormatException e) {
+            return false;
+        }
+    }
+
+    static String read(File portFile) {
+        try {
+            return portFile.isFile()
+                ? new String(Files.readAllBytes(portFile.toPath()), StandardCharsets.UTF_8).trim() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
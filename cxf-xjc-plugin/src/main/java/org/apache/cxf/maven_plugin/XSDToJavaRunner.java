@@ -19,16 +19,34 @@
 
 package org.apache.cxf.maven_plugin;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import javax.xml.XMLConstants;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
@@ -37,24 +55,32 @@ import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.helpers.XMLFilterImpl;
 
-import com.sun.codemodel.CodeWriter;
 import com.sun.codemodel.JCodeModel;
 import com.sun.istack.SAXParseException2;
 import com.sun.tools.xjc.ErrorReceiver;
 import com.sun.tools.xjc.Language;
 import com.sun.tools.xjc.Options;
+import com.sun.tools.xjc.Plugin;
 import com.sun.tools.xjc.api.SpecVersion;
 import com.sun.tools.xjc.model.Model;
 import com.sun.tools.xjc.outline.Outline;
 import com.sun.tools.xjc.reader.internalizer.AbstractReferenceFinderImpl;
 import com.sun.tools.xjc.reader.internalizer.DOMForest;
+import com.sun.tools.xjc.reader.internalizer.InternalizationLogic;
 import com.sun.tools.xjc.reader.xmlschema.parser.XMLSchemaInternalizationLogic;
+import com.sun.xml.xsom.XSComponent;
+import com.sun.xml.xsom.XSSchema;
+import com.sun.xml.xsom.parser.XMLParser;
 
 import jakarta.xml.bind.annotation.XmlElementRef;
+import javassist.CannotCompileException;
 import javassist.ClassPool;
 import javassist.CtClass;
 import javassist.CtMethod;
-import org.apache.xml.resolver.CatalogManager;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+import javassist.expr.ExprEditor;
+import javassist.expr.MethodCall;
 import org.apache.xml.resolver.tools.CatalogResolver;
 import org.sonatype.plexus.build.incremental.BuildContext;
 
@@ -62,12 +88,57 @@ import org.sonatype.plexus.build.incremental.BuildContext;
  * 
  */
 public class XSDToJavaRunner {
+    static final String JOBS = "-jobs";
+    static final String THREADS = "-threads";
+    static final String DIAGNOSTICS = "-diagnostics";
+    static final String TOKEN = "-token";
+
+    /**
+     * Options of the runner that are removed before the arguments are passed to XJC.
+     */
+    static final String SCHEMA_CACHE = "-cxf-schema-cache";
+    static final String OFFLINE = "-cxf-offline";
+
+    /**
+     * Collects the system ids of the documents parsed by the run on the current thread.
+     */
+    static final ThreadLocal<Set<String>> LOADED_DOCUMENTS = new ThreadLocal<>();
+
     static Class<?> modelLoaderClass;
     
     final String[] args;
     final List<String> cpList;
     final XJCErrorListener listener;
     final File xsdFile;
+    final Set<String> loadedDocuments = new LinkedHashSet<>();
+    final Map<String, String> resolvedLocations = new HashMap<>();
+
+    /**
+     * The files the last run generated, relative to the output directory.
+     */
+    final List<String> generatedFiles = new ArrayList<>();
+
+    /**
+     * Milliseconds the plugins ran during the last run, by their option, e.g. "-Xdv".
+     */
+    final Map<String, Long> pluginTimes = new LinkedHashMap<>();
+
+    /**
+     * Milliseconds spent on the phases of the last run, the number of files it generated and
+     * how many of them were left untouched because they already had the generated content.
+     */
+    long parseTime;
+    long generateTime;
+    long writeTime;
+    int fileCount;
+    int unchangedCount;
+
+    /**
+     * The local files, jar entries and jars the last run read its documents from.
+     */
+    int fileReads;
+    int entryReads;
+    int archiveCount;
     
     public XSDToJavaRunner(String[] args, XJCErrorListener listener,
                            File file, List<String> cp) {
@@ -113,12 +184,25 @@ public class XSDToJavaRunner {
             }
         }
 
+        final List<String> xjcArgs = new ArrayList<>(args.length);
+        final HttpSchemaCache schemaCache = createSchemaCache(xjcArgs);
+
         try (URLClassLoader loader = new URLClassLoader(urls.toArray(new URL[0]),
-                                                      this.getClass().getClassLoader())) {
-            final CatalogManager cm = new CatalogManager();
-            cm.setUseStaticCatalog(false);
-            cm.setIgnoreMissingProperties(true);
-            final CatalogResolver catResolver = new CatalogResolver(cm) {
+                                                      this.getClass().getClassLoader());
+            SchemaFileSystems fileSystems = new SchemaFileSystems()) {
+            final CatalogIndex catalogs = new CatalogIndex();
+            final CatalogResolver catResolver = new CatalogResolver(CatalogIndex.MANAGER) {
+                @Override
+                public String getResolvedEntity(String publicId, String systemId) {
+                    try {
+                        return catalogs.resolve(publicId, systemId);
+                    } catch (IOException e) {
+                        listener.warning(xsdFile, e);
+                        return null;
+                    }
+                }
+
+                @Override
                 public InputSource resolveEntity(String publicId, String systemId) {
                     final String resolved = getResolvedEntity(publicId, systemId);
                     if (resolved == null) {
@@ -127,17 +211,14 @@ public class XSDToJavaRunner {
                     InputSource iSource = new InputSource((systemId != null) ? systemId : resolved);
                     iSource.setPublicId(publicId);
                     try {
-                        final URL url;
+                        final URL url = catalogs.getURL(resolved, loader);
                         if (resolved.startsWith("classpath:")) {
-                            url = loader.getResource(resolved.substring("classpath:".length()));
                             iSource.setSystemId(url.toExternalForm());
-                        } else {
-                            url = new URL(resolved);
                         }
-                        InputStream iStream = url.openStream();
-                        iSource.setByteStream(iStream);
-
-                        //System.out.println("Resolved: " + publicId + " " + systemId + " " + url);
+                        iSource.setByteStream(CatalogIndex.openLazily(url, schemaCache));
+                        if (systemId != null) {
+                            resolvedLocations.put(systemId, url.toExternalForm());
+                        }
                         return iSource;
                     } catch (Exception e) {
                         listener.warning(xsdFile, e);
@@ -151,7 +232,9 @@ public class XSDToJavaRunner {
                     if (entityResolver == null) {
                         entityResolver = catResolver;
                     }
-                    catResolver.getCatalog().parseCatalog(catalogFile.getPath());
+                    Object event = GenerationEvent.CATALOG_SETUP.begin();
+                    catalogs.add(catalogFile);
+                    GenerationEvent.CATALOG_SETUP.commit(event, String.valueOf(xsdFile), catalogFile.getPath());
                 }
             };
 
@@ -167,56 +250,244 @@ public class XSDToJavaRunner {
             ClassLoader origLoader = Thread.currentThread().getContextClassLoader();
             try {
                 Thread.currentThread().setContextClassLoader(opt.getUserClassLoader(origLoader));
-                opt.parseArguments(args);
+                opt.parseArguments(xjcArgs.toArray(new String[0]));
             } finally {
                 Thread.currentThread().setContextClassLoader(origLoader);
             }
-            Model model = loadModel(opt); 
+            if (schemaCache != null) {
+                useSchemaCache(opt, schemaCache);
+            }
+            Model model;
+            Object event = GenerationEvent.LOAD_MODEL.begin();
+            long start = System.nanoTime();
+            LOADED_DOCUMENTS.set(loadedDocuments);
+            SchemaFileSystems.CURRENT.set(fileSystems);
+            try {
+                model = loadModel(opt);
+            } finally {
+                LOADED_DOCUMENTS.remove();
+                SchemaFileSystems.CURRENT.remove();
+                parseTime = (System.nanoTime() - start) / 1000000L;
+                fileReads = fileSystems.getFileCount();
+                entryReads = fileSystems.getEntryCount();
+                archiveCount = fileSystems.getArchiveCount();
+                GenerationEvent.LOAD_MODEL.commit(event, String.valueOf(xsdFile), fileReads + entryReads);
+            }
+            if (schemaCache != null) {
+                for (String warning : schemaCache.takeWarnings()) {
+                    listener.warning(xsdFile, new IOException(warning));
+                }
+            }
+            if (model != null && model.schemaComponent != null) {
+                for (XSSchema schema : model.schemaComponent.getSchemas()) {
+                    if (!XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(schema.getTargetNamespace())) {
+                        addLoadedDocuments(schema);
+                    }
+                }
+            }
             if (model == null) {
                 listener.message(xsdFile, "Failed to create model");
                 return -1;
             }
-            Outline outline = model.generateCode(opt, listener);
-            if (outline == null) {
-                listener.message(xsdFile, "Failed to generate code");
-                return -1;
-            }
+            return generate(model, opt);
+        }
+    }
 
-            // then print them out
-            try {
-                CodeWriter cw = opt.createCodeWriter();
-                model.codeModel.build(cw);
-            } catch (IOException e) {
-                listener.error(e);
-                return -1;
-            }
+    /**
+     * Generates the code for the model and writes it.  The active plugins are wrapped for
+     * the time being, so the time spent in each of them is recorded.
+     */
+    private int generate(Model model, Options opt) {
+        String schema = String.valueOf(xsdFile);
+        List<Plugin> plugins = new ArrayList<>(opt.activePlugins);
+        opt.activePlugins.clear();
+        for (Plugin plugin : plugins) {
+            opt.activePlugins.add(new TimedPlugin(plugin, schema, pluginTimes));
+        }
+        Object event = GenerationEvent.GENERATE_CODE.begin();
+        long start = System.nanoTime();
+        Outline outline;
+        try {
+            outline = model.generateCode(opt, listener);
+        } finally {
+            opt.activePlugins.clear();
+            opt.activePlugins.addAll(plugins);
+            generateTime = (System.nanoTime() - start) / 1000000L;
+            GenerationEvent.GENERATE_CODE.commit(event, schema);
+        }
+        if (outline == null) {
+            listener.message(xsdFile, "Failed to generate code");
+            return -1;
+        }
+
+        // then print them out
+        event = GenerationEvent.BUILD_CODE.begin();
+        start = System.nanoTime();
+        try {
+            BuildContext context = listener.getBuildContext();
+            WriteIfChangedCodeWriter cw = new WriteIfChangedCodeWriter(opt.targetDir, opt.readOnly, opt.encoding,
+                context != null && context.isIncremental() ? context : null);
+            model.codeModel.build(opt.createCodeWriter(cw));
+            fileCount = model.codeModel.countArtifacts();
+            unchangedCount = cw.getUnchangedCount();
+            generatedFiles.addAll(cw.getFiles());
+        } catch (IOException e) {
+            listener.error(e);
+            return -1;
+        } finally {
+            writeTime = (System.nanoTime() - start) / 1000000L;
+            GenerationEvent.BUILD_CODE.commit(event, schema, fileCount, unchangedCount);
         }
         return 0;
     }
 
-    private synchronized Class<?> getModelLoaderClass() {
-        if (modelLoaderClass == null) {
-            try {
-                ClassPool pool = ClassPool.getDefault();
-                CtClass cc = pool.get("com.sun.tools.xjc.ModelLoader");
-                cc.setName("com.sun.tools.xjc.ModelLoader");
-                for (CtMethod m : cc.getMethods()) {
-                    if ("buildDOMForest".equals(m.getName())) {
-                        m.insertBefore("$1 = new " + CustomizedLogic.class.getName() + "();");
-                    }
+    /**
+     * Creates the schema cache the runner options ask for, if any, and adds the remaining
+     * arguments to the given list.
+     */
+    private HttpSchemaCache createSchemaCache(List<String> xjcArgs) {
+        String directory = null;
+        boolean offline = false;
+        for (int x = 0; x < args.length; x++) {
+            if (SCHEMA_CACHE.equals(args[x]) && x + 1 < args.length) {
+                directory = args[++x];
+            } else if (OFFLINE.equals(args[x])) {
+                offline = true;
+            } else {
+                xjcArgs.add(args[x]);
+            }
+        }
+        return directory == null ? null : HttpSchemaCache.get(new File(directory), offline);
+    }
+
+    /**
+     * Imports are resolved through the entity resolver, but the schemas and binding files
+     * passed as arguments are read by XJC itself, so those get their content from the cache
+     * up front.  XJC parses them more than once with the same input source.
+     */
+    private static void useSchemaCache(Options opt, HttpSchemaCache schemaCache) throws IOException {
+        opt.entityResolver = schemaCache.createEntityResolver(opt.entityResolver);
+        for (InputSource[] sources : Arrays.asList(opt.getGrammars(), opt.getBindFiles())) {
+            for (InputSource source : sources) {
+                if (source.getByteStream() == null && source.getCharacterStream() == null
+                    && source.getSystemId() != null && HttpSchemaCache.isRemote(source.getSystemId())) {
+                    source.setByteStream(schemaCache.openReusable(source.getSystemId()));
                 }
-                modelLoaderClass = cc.toClass();
-            } catch (Throwable t) {
+            }
+        }
+    }
+
+    /**
+     * The locations of all schemas and binding files the last run loaded.  Documents that
+     * were resolved through the catalog are reported with their resolved location.
+     */
+    public List<String> getLoadedSchemas() {
+        List<String> schemas = new ArrayList<>(loadedDocuments.size());
+        for (String systemId : loadedDocuments) {
+            String resolved = resolvedLocations.get(systemId);
+            schemas.add(resolved == null ? systemId : resolved);
+        }
+        return schemas;
+    }
+
+    /**
+     * Records the documents the components of a schema were read from.  This also works
+     * when the ModelLoader could not be patched and the ReferenceFinder is not used.
+     */
+    private void addLoadedDocuments(XSSchema schema) {
+        addLoadedDocument(schema);
+        for (Map<String, ? extends XSComponent> components : Arrays.asList(schema.getElementDecls(),
+                                                                           schema.getAttributeDecls(),
+                                                                           schema.getTypes(),
+                                                                           schema.getModelGroupDecls(),
+                                                                           schema.getAttGroupDecls(),
+                                                                           schema.getIdentityConstraints(),
+                                                                           schema.getNotations())) {
+            for (XSComponent component : components.values()) {
+                addLoadedDocument(component);
+            }
+        }
+    }
+
+    private void addLoadedDocument(XSComponent component) {
+        Locator l = component.getLocator();
+        if (l != null && l.getSystemId() != null) {
+            loadedDocuments.add(l.getSystemId());
+        }
+    }
+
+    /**
+     * Patches the ModelLoader to use the {@link CustomizedLogic}.  The patched class is defined
+     * next to the XJC Options class through a private lookup, which works on all JDKs without
+     * opening java.lang, and in whatever class loader the runner was loaded by.  If the
+     * classes cannot be patched, e.g. as a different XJC version is used, the failure is
+     * reported as a warning and the unpatched classes are used.
+     */
+    private Class<?> getModelLoaderClass() {
+        synchronized (XSDToJavaRunner.class) {
+            if (modelLoaderClass == null) {
+                ClassPool pool = new ClassPool(true);
+                pool.appendClassPath(new LoaderClassPath(XSDToJavaRunner.class.getClassLoader()));
+                patchParsers(pool);
                 try {
-                    modelLoaderClass = Class.forName("com.sun.tools.xjc.ModelLoader");
-                } catch (ClassNotFoundException e) {
-                    //ignore
+                    CtClass cc = pool.get("com.sun.tools.xjc.ModelLoader");
+                    cc.setName("com.sun.tools.xjc.ModelLoader");
+                    for (CtMethod m : cc.getMethods()) {
+                        if ("buildDOMForest".equals(m.getName())) {
+                            m.insertBefore("$1 = new " + CustomizedLogic.class.getName() + "();");
+                        }
+                    }
+                    modelLoaderClass = cc.toClass(Options.class);
+                } catch (NotFoundException | CannotCompileException | LinkageError e) {
+                    reportPatchFailure("com.sun.tools.xjc.ModelLoader", e);
+                    try {
+                        modelLoaderClass = Class.forName("com.sun.tools.xjc.ModelLoader");
+                    } catch (ClassNotFoundException e2) {
+                        //ignore
+                    }
                 }
             }
+            return modelLoaderClass;
         }
-        return modelLoaderClass;
     }
     
+    /**
+     * Lets XJC parse the schema documents through the {@link SchemaDocumentCache}: the DOMForest,
+     * which is used when there are binding files, and the XSOM parser, which XJC tries first
+     * otherwise.  This has to happen before the classes are loaded; if it fails, documents are
+     * parsed as usual.
+     */
+    private void patchParsers(ClassPool pool) {
+        patchParse(pool, "com.sun.tools.xjc.reader.internalizer.DOMForest",
+                   "(Ljava/lang/String;Lorg/xml/sax/InputSource;Z)Lorg/w3c/dom/Document;", InternalizationLogic.class);
+        patchParse(pool, "com.sun.xml.xsom.parser.JAXPParser",
+                   "(Lorg/xml/sax/InputSource;Lorg/xml/sax/ContentHandler;Lorg/xml/sax/ErrorHandler;"
+                   + "Lorg/xml/sax/EntityResolver;)V", XMLParser.class);
+    }
+
+    private void patchParse(ClassPool pool, String className, String descriptor, Class<?> neighbor) {
+        try {
+            CtClass cc = pool.get(className);
+            CtMethod m = cc.getMethod("parse", descriptor);
+            m.instrument(new ExprEditor() {
+                @Override
+                public void edit(MethodCall call) throws CannotCompileException {
+                    if ("parse".equals(call.getMethodName()) && "org.xml.sax.XMLReader".equals(call.getClassName())) {
+                        call.replace(SchemaDocumentCache.class.getName() + ".parse($0, $1);");
+                    }
+                }
+            });
+            cc.toClass(neighbor);
+        } catch (NotFoundException | CannotCompileException | LinkageError e) {
+            // parse without the cache
+            reportPatchFailure(className, e);
+        }
+    }
+
+    private void reportPatchFailure(String className, Throwable t) {
+        listener.warning(xsdFile, new Exception("Could not patch " + className + ", using it unchanged: " + t, t));
+    }
+
     private Model loadModel(Options opt) {
         try {
             return (Model)getModelLoaderClass()
@@ -243,6 +514,15 @@ public class XSDToJavaRunner {
                 super.setDocumentLocator(l);
                 locator = l;
             }
+
+            @Override
+            public void startDocument() throws SAXException {
+                super.startDocument();
+                Set<String> loaded = LOADED_DOCUMENTS.get();
+                if (loaded != null && locator != null && locator.getSystemId() != null) {
+                    loaded.add(locator.getSystemId());
+                }
+            }
             
             @Override
             public void startElement(String namespaceURI, String localName, String qName, Attributes atts)
@@ -348,17 +628,154 @@ public class XSDToJavaRunner {
     }
 
     public static void main(String[] args) throws Exception {
-        BuildContext context = new XJCBuildContext();
+        if (args.length > 1 && JOBS.equals(args[0])) {
+            int threads = 1;
+            int port = -1;
+            String token = "";
+            for (int x = 2; x + 1 < args.length; x += 2) {
+                if (THREADS.equals(args[x])) {
+                    threads = Integer.parseInt(args[x + 1]);
+                } else if (DIAGNOSTICS.equals(args[x])) {
+                    port = Integer.parseInt(args[x + 1]);
+                } else if (TOKEN.equals(args[x])) {
+                    token = args[x + 1];
+                }
+            }
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                new DataOutputStream(out).writeUTF(token);
+                runJobs(readJobs(new File(args[1])), threads, new DiagnosticsWriter(out));
+                out.flush();
+            }
+            System.exit(0);
+        }
+        System.exit(runJob(args, System.out, System.err));
+    }
+
+    /**
+     * Runs the jobs of a job file and sends their results to the mojo.  The records of a job
+     * end with its result, so the mojo can process every job as soon as it is finished.
+     */
+    static void runJobs(final List<String[]> jobs, int threads, final DiagnosticsWriter writer)
+        throws Exception {
+        if (threads <= 1) {
+            for (int x = 0; x < jobs.size(); x++) {
+                runJob(jobs.get(x), x, writer);
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, jobs.size()));
+        try {
+            List<Future<Integer>> results = new ArrayList<>(jobs.size());
+            for (int x = 0; x < jobs.size(); x++) {
+                final int job = x;
+                results.add(executor.submit(() -> runJob(jobs.get(job), job, writer)));
+            }
+            for (Future<Integer> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Entry point for runs in a class loader that is isolated from the mojo.  Only takes JDK
+     * types, the results are written to the stream as {@link DiagnosticsWriter} records.
+     */
+    public static int runIsolated(String[] args, List<String> classPath, OutputStream out) throws IOException {
+        return runJob(args, classPath, 0, new DiagnosticsWriter(out));
+    }
+
+    /**
+     * Runs a single job and writes its messages, the loaded schemas, the timings and the
+     * result as records of the given job.
+     */
+    static int runJob(String[] args, int job, DiagnosticsWriter writer) throws IOException {
+        return runJob(args, new ArrayList<String>(), job, writer);
+    }
+
+    static int runJob(String[] args, List<String> classPath, int job, DiagnosticsWriter writer)
+        throws IOException {
+        XSDToJavaRunner runner = null;
+        int i;
+        try {
+            runner = createRunner(args, classPath, new DiagnosticsBuildContext(writer, job));
+            i = runner.run();
+        } catch (Throwable t) {
+            writer.message(job, args[args.length - 1], 0, 0, BuildContext.SEVERITY_ERROR, t.toString(), t);
+            i = 1;
+        }
+        if (runner != null) {
+            for (String schema : runner.getLoadedSchemas()) {
+                writer.loaded(job, schema);
+            }
+            for (String file : runner.generatedFiles) {
+                writer.generated(job, file);
+            }
+            for (Map.Entry<String, Long> plugin : runner.pluginTimes.entrySet()) {
+                writer.plugin(job, plugin.getKey(), plugin.getValue());
+            }
+            writer.summary(job, runner.parseTime, runner.generateTime, runner.writeTime, runner.fileCount,
+                           runner.unchangedCount);
+            writer.resolved(job, runner.fileReads, runner.entryReads, runner.archiveCount);
+        }
+        writer.exit(job, i);
+        return i;
+    }
+
+    /**
+     * Writes a job file: the arguments of every job on a line of their own, followed by an
+     * empty line.
+     */
+    static void writeJobs(File file, List<String[]> jobs) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            for (String[] job : jobs) {
+                for (String arg : job) {
+                    if (arg.indexOf('\n') != -1 || arg.indexOf('\r') != -1 || arg.isEmpty()) {
+                        throw new IOException("Argument cannot be passed in a job file: \"" + arg + "\"");
+                    }
+                    writer.write(arg);
+                    writer.write('\n');
+                }
+                writer.write('\n');
+            }
+        }
+    }
+
+    static List<String[]> readJobs(File file) throws IOException {
+        List<String[]> jobs = new ArrayList<>();
+        List<String> job = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (line.isEmpty()) {
+                jobs.add(job.toArray(new String[0]));
+                job.clear();
+            } else {
+                job.add(line);
+            }
+        }
+        if (!job.isEmpty()) {
+            jobs.add(job.toArray(new String[0]));
+        }
+        return jobs;
+    }
+
+    /**
+     * Runs XJC with the given arguments and reports the messages as text.
+     */
+    static int runJob(String[] args, PrintStream out, PrintStream err) throws Exception {
+        return createRunner(args, new ArrayList<String>(), new XJCBuildContext(out, err)).run();
+    }
+
+    private static XSDToJavaRunner createRunner(String[] args, List<String> cplist, BuildContext context)
+        throws Exception {
         XJCErrorListener listener = new XJCErrorListener(context);
 
-        List<String> cplist = new ArrayList<String>();
-        
         File outputFile = getFile(args[args.length - 1], listener);
         if (outputFile == null) {
             outputFile = new File(args[args.length - 1]);
         }
-        int i = new XSDToJavaRunner(args, listener, outputFile, cplist).run();
-        System.exit(i);
+        return new XSDToJavaRunner(args, listener, outputFile, cplist);
     }
 
 }
@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+/**
+ * Generates the sources like xsdtojava and then keeps watching the schemas, binding files,
+ * catalogs and dependencies of the xsdOptions.  When one of them changes, the affected
+ * xsdOptions are generated again by XJC in the Maven JVM, which stays warm between runs.
+ * Only generated files whose content changed are written.  Runs until it is interrupted.
+ */
+@Mojo(name = "xsdtojava-watch",
+    requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME
+)
+public class XSDToJavaWatchMojo extends XSDToJavaMojo {
+    /**
+     * Milliseconds without further changes to wait for before generating, so that a save
+     * touching several files results in a single run.
+     */
+    @Parameter(property = "cxf.xjc.quietPeriod", defaultValue = "200")
+    private long quietPeriod;
+
+    public void execute() throws MojoExecutionException {
+        useIsolatedUnlessForked();
+        generate(null);
+
+        XsdOption[] options = xsdOptions;
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Set<Path>> watched = new ArrayList<>(options.length);
+                Set<Path> all = new HashSet<>();
+                for (XsdOption option : options) {
+                    Set<Path> paths = getWatchedPaths(option);
+                    watched.add(paths);
+                    all.addAll(paths);
+                }
+                register(watcher, all);
+                getLog().info("Watching " + all.size() + " files for changes");
+
+                Set<Path> changed = awaitChanges(watcher);
+                List<XsdOption> affected = new ArrayList<>();
+                for (int x = 0; x < options.length; x++) {
+                    if (isAffected(watched.get(x), changed)) {
+                        affected.add(options[x]);
+                    }
+                }
+                if (!affected.isEmpty()) {
+                    xsdOptions = affected.toArray(new XsdOption[0]);
+                    try {
+                        generate(changed);
+                    } finally {
+                        xsdOptions = options;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void generate(Set<Path> changed) {
+        if (changed != null) {
+            getLog().info("Generating for changes in " + changed);
+        }
+        long start = System.currentTimeMillis();
+        try {
+            super.execute();
+            getLog().info("Generated sources in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (MojoExecutionException e) {
+            // keep watching, the schema is probably fixed with the next save
+            getLog().error(e.getMessage(), e.getCause());
+        }
+    }
+
+    private static void register(WatchService watcher, Set<Path> paths) throws IOException {
+        Set<Path> dirs = new HashSet<>();
+        for (Path path : paths) {
+            dirs.add(Files.isDirectory(path) ? path : path.getParent());
+        }
+        for (Path dir : dirs) {
+            if (dir != null && Files.isDirectory(dir)) {
+                // registering a directory again returns the existing key
+                dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                             StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    /**
+     * Waits for changes and collects them until none arrive for the quiet period.
+     */
+    private Set<Path> awaitChanges(WatchService watcher) throws InterruptedException {
+        Set<Path> changed = new LinkedHashSet<>();
+        WatchKey key = watcher.take();
+        while (key != null) {
+            Path dir = (Path)key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    changed.add(dir);
+                } else {
+                    changed.add(dir.resolve((Path)event.context()));
+                }
+            }
+            key.reset();
+            key = watcher.poll(quietPeriod, TimeUnit.MILLISECONDS);
+        }
+        return changed;
+    }
+
+    /**
+     * Checks whether a changed path is a watched file, is in a watched directory, or is a
+     * directory whose events were lost and that contains a watched file.
+     */
+    static boolean isAffected(Set<Path> watched, Set<Path> changed) {
+        for (Path path : changed) {
+            if (watched.contains(path) || watched.contains(path.getParent())) {
+                return true;
+            }
+            for (Path w : watched) {
+                if (path.equals(w.getParent())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
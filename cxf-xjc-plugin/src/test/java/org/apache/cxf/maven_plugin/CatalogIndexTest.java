@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class CatalogIndexTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testResolve() throws Exception {
+        File catalogFile = folder.newFile("catalog.xml");
+        Files.write(catalogFile.toPath(), ("<catalog xmlns=\"urn:oasis:names:tc:entity:xmlns:xml:catalog\">"
+            + "<system systemId=\"http://example.org/a.xsd\" uri=\"classpath:a.xsd\"/>"
+            + "<rewriteSystem systemIdStartString=\"http://example.org/\" rewritePrefix=\"classpath:example/\"/>"
+            + "<rewriteSystem systemIdStartString=\"http://example.org/b/\" rewritePrefix=\"classpath:b/\"/>"
+            + "<public publicId=\"urn:example\" uri=\"classpath:public.xsd\"/>"
+            + "</catalog>").getBytes(StandardCharsets.UTF_8));
+
+        CatalogIndex catalogs = new CatalogIndex();
+        catalogs.add(catalogFile);
+        assertEquals("classpath:a.xsd", catalogs.resolve(null, "http://example.org/a.xsd"));
+        assertEquals("classpath:example/c.xsd", catalogs.resolve(null, "http://example.org/c.xsd"));
+        assertEquals("classpath:b/c.xsd", catalogs.resolve(null, "http://example.org/b/c.xsd"));
+        assertEquals("classpath:b/c.xsd", catalogs.resolve(null, "http://example.org/b/c.xsd"));
+        assertEquals("classpath:public.xsd", catalogs.resolve("urn:example", "http://example.com/p.xsd"));
+        assertNull(catalogs.resolve(null, "http://example.com/other.xsd"));
+        assertNull(catalogs.resolve(null, "http://example.org"));
+    }
+
+    @Test
+    public void testStreamIsOpenedOnRead() throws Exception {
+        File file = new File(folder.getRoot(), "later.xsd");
+        try (InputStream in = CatalogIndex.openLazily(file.toURI().toURL(), null)) {
+            Files.write(file.toPath(), "<schema/>".getBytes(StandardCharsets.UTF_8));
+            assertEquals('<', in.read());
+        }
+        file.delete();
+        try (InputStream in = CatalogIndex.openLazily(file.toURI().toURL(), null)) {
+            in.read();
+            fail("Reading a missing file should fail");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DiagnosticsChannelTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        DiagnosticsWriter writer = new DiagnosticsWriter(bout);
+        // text that used to confuse the line based protocol
+        String message = "MSG: not a header\nLine: 7\nDONE";
+        writer.message(1, "/tmp/b.xsd", 3, 42, BuildContext.SEVERITY_ERROR, message, new Exception("cause"));
+        writer.loaded(1, "file:/tmp/b.xsd");
+        writer.generated(1, "b/ObjectFactory.java");
+        writer.plugin(1, "-Xdv", 15);
+        writer.summary(1, 10, 20, 30, 4, 3);
+        writer.resolved(1, 5, 6, 2);
+        writer.exit(1, -1);
+        writer.exit(0, 0);
+
+        GenerationTask first = new GenerationTask(new XsdOption(), "a.xsd", new String[] {"a.xsd"}, null);
+        GenerationTask second = new GenerationTask(new XsdOption(), "b.xsd", new String[] {"b.xsd"}, null);
+        final List<String> messages = new ArrayList<>();
+        BuildContext context = new XJCBuildContext() {
+            @Override
+            public void addMessage(File file, int line, int column, String msg, int severity, Throwable cause) {
+                messages.add(file.getPath() + " " + line + " " + column + " " + severity + " " + msg);
+            }
+        };
+        DiagnosticsReader reader = new DiagnosticsReader(new SystemStreamLog(), Arrays.asList(first, second),
+                                                         Arrays.asList(context, context));
+        reader.read(new DataInputStream(new ByteArrayInputStream(bout.toByteArray())));
+
+        assertEquals(Arrays.asList(new File("/tmp/b.xsd").getPath() + " 3 42 "
+                                   + BuildContext.SEVERITY_ERROR + " " + message), messages);
+        assertEquals(Arrays.asList("file:/tmp/b.xsd"), second.loadedSchemas);
+        assertTrue(first.loadedSchemas.isEmpty());
+        assertEquals(Arrays.asList("b/ObjectFactory.java"), second.generatedFiles);
+        assertEquals(20, second.generateTime);
+        assertEquals(Long.valueOf(15), second.pluginTimes.get("-Xdv"));
+        assertEquals(4, second.fileCount);
+        assertEquals(3, second.unchangedCount);
+        assertEquals(6, second.entryReads);
+        assertEquals(2, second.archiveCount);
+        assertEquals(-1, reader.getResult(1));
+        assertEquals(0, reader.getResult(0));
+    }
+
+    @Test
+    public void testMissingResult() throws Exception {
+        GenerationTask task = new GenerationTask(new XsdOption(), "a.xsd", new String[] {"a.xsd"}, null);
+        DiagnosticsReader reader = new DiagnosticsReader(new SystemStreamLog(), Arrays.asList(task),
+                                                         Arrays.<BuildContext>asList(new XJCBuildContext()));
+        reader.read(new DataInputStream(new ByteArrayInputStream(new byte[0])));
+        assertFalse(reader.hasResult(0));
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.maven_plugin;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class GeneratedSourcesCacheTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRestoreInOtherCheckout() throws Exception {
+        File cacheDir = folder.newFolder("cache");
+        File first = folder.newFolder("first");
+        File second = folder.newFolder("second");
+        String xsd = write(first, "a.xsd", "<schema/>");
+        write(second, "a.xsd", "<schema/>");
+
+        File generated = folder.newFolder("generated");
+        write(new File(generated, "org/example"), "A.java", "class A {}");
+
+        GeneratedSourcesCache cache = create(cacheDir, first);
+        assertEquals("${basedir}/a.xsd", cache.normalize(xsd));
+        cache.store("key", generated, Arrays.asList(xsd));
+
+        File output = folder.newFolder("output");
+        List<String> loaded = create(cacheDir, second).restore("key", output);
+        assertEquals(Arrays.asList(new File(second, "a.xsd").toURI().toString()), loaded);
+        assertEquals("class A {}", new String(Files.readAllBytes(new File(output, "org/example/A.java").toPath()),
+                                              StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testChangedImport() throws Exception {
+        File cacheDir = folder.newFolder("cache");
+        File basedir = folder.newFolder("project");
+        String xsd = write(basedir, "a.xsd", "<schema/>");
+        String imported = write(basedir, "b.xsd", "<schema/>");
+
+        GeneratedSourcesCache cache = create(cacheDir, basedir);
+        cache.store("key", folder.newFolder("generated"), Arrays.asList(xsd, imported));
+
+        write(basedir, "b.xsd", "<schema></schema>");
+        assertNull(cache.restore("key", folder.newFolder("output")));
+        assertNull(cache.restore("other", folder.newFolder("output2")));
+    }
+
+    private static GeneratedSourcesCache create(File cacheDir, File basedir) {
+        GeneratedSourcesCache cache = new GeneratedSourcesCache(cacheDir);
+        cache.addRoot("${basedir}", basedir);
+        return cache;
+    }
+
+    private static String write(File dir, String name, String content) throws Exception {
+        dir.mkdirs();
+        File file = new File(dir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file.toURI().toString();
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeNotNull;
+
+public class GenerationEventTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEventIsRecorded() throws Exception {
+        List<Map<String, Object>> events = record(folder.newFile("recording.jfr").toPath(),
+                                                  "org.apache.cxf.xjc.LoadModel", () -> {
+                Object event = GenerationEvent.LOAD_MODEL.begin();
+                assertNotNull(event);
+                GenerationEvent.LOAD_MODEL.commit(event, "a.xsd", 3);
+                GenerationEvent.BUILD_CODE.commit(GenerationEvent.BUILD_CODE.begin(), "a.xsd", 2, 1);
+                return null;
+            });
+        assumeNotNull(events);
+        assertEquals(2, events.size());
+        Map<String, Object> loadModel = events.get(0);
+        assertEquals("org.apache.cxf.xjc.LoadModel", loadModel.get("eventType"));
+        assertEquals("a.xsd", loadModel.get("schema"));
+        assertEquals(3, loadModel.get("documentsRead"));
+        Map<String, Object> buildCode = events.get(1);
+        assertEquals("org.apache.cxf.xjc.BuildCode", buildCode.get("eventType"));
+        assertEquals(2, buildCode.get("files"));
+        assertEquals(1, buildCode.get("unchangedFiles"));
+    }
+
+    @Test
+    public void testNoRecording() {
+        // without a recording, or without Flight Recorder, events are dropped
+        GenerationEvent.LOAD_MODEL.commit(GenerationEvent.LOAD_MODEL.begin(), "a.xsd", 3);
+        GenerationEvent.LOAD_MODEL.commit(null, "a.xsd", 3);
+    }
+
+    /**
+     * Runs the given code while recording into the given file, with the given event type
+     * enabled, and returns the field values of the recorded events in the order they started,
+     * with their type as "eventType" and their duration as "duration".  Flight Recorder is used
+     * by reflection like in {@link GenerationEvent}; returns null if it is not available.
+     */
+    static List<Map<String, Object>> record(Path file, String eventType, Callable<?> code) throws Exception {
+        Class<?> recordingClass;
+        try {
+            recordingClass = Class.forName("jdk.jfr.Recording");
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        Object recording = recordingClass.getConstructor().newInstance();
+        try {
+            recordingClass.getMethod("enable", String.class).invoke(recording, eventType);
+            recordingClass.getMethod("start").invoke(recording);
+            code.call();
+            recordingClass.getMethod("stop").invoke(recording);
+            recordingClass.getMethod("dump", Path.class).invoke(recording, file);
+        } finally {
+            recordingClass.getMethod("close").invoke(recording);
+        }
+
+        List<Map<String, Object>> events = new ArrayList<>();
+        for (Object event : (List<?>)Class.forName("jdk.jfr.consumer.RecordingFile")
+                 .getMethod("readAllEvents", Path.class).invoke(null, file)) {
+            Class<?> eventClass = Class.forName("jdk.jfr.consumer.RecordedEvent");
+            Map<String, Object> values = new HashMap<>();
+            Object type = eventClass.getMethod("getEventType").invoke(event);
+            values.put("eventType", type.getClass().getMethod("getName").invoke(type));
+            for (Object field : (List<?>)eventClass.getMethod("getFields").invoke(event)) {
+                String name = (String)field.getClass().getMethod("getName").invoke(field);
+                values.put(name, eventClass.getMethod("getValue", String.class).invoke(event, name));
+            }
+            values.put("duration", eventClass.getMethod("getDuration").invoke(event));
+            events.add(values);
+        }
+        events.sort(Comparator.comparingLong(values -> (Long)values.get("startTime")));
+        return events;
+    }
+}
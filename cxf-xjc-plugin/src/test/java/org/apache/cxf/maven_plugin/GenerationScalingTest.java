@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Generates code for synthesized schemas with all plugins of this project enabled and fails
+ * when the wall time or the peak heap of the run exceed their budget.  The test is skipped
+ * unless a <code>cxf.xjc.scaling</code> property is set; <code>-Dcxf.xjc.scaling</code>
+ * runs it with the default size, the sizes seen in production are run with e.g.
+ * <pre>
+ * mvn test -Dtest=GenerationScalingTest -Dcxf.xjc.scaling.types=10000 -Dcxf.xjc.scaling.namespaces=40
+ *     -Dcxf.xjc.scaling.maxTime=600000 -Dcxf.xjc.scaling.maxHeap=4096
+ * </pre>
+ * The peak heap is the sum of the peaks of the heap memory pools, so it includes garbage
+ * that was not collected yet and depends on the collector and the maximum heap size.
+ */
+public class GenerationScalingTest {
+    private static final String PREFIX = "cxf.xjc.scaling.";
+    private static final long MB = 1024 * 1024;
+    private static final Logger LOG = Logger.getLogger(GenerationScalingTest.class.getName());
+
+    // the plugins log every method they add
+    private static final Logger PLUGIN_LOG = Logger.getLogger("org.apache.cxf.xjc");
+
+    // -Xbg is left out as it removes the is methods -Xbgi adds getters for
+    private static final List<String> PLUGINS = Arrays.asList("-Xdv", "-Xts", "-Xbgi", "-Xbug671",
+        "-Xbug986", "-Xproperty-listener", "-Xjavadoc", "-Xwsdlextension");
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private Level pluginLevel;
+
+    @Before
+    public void setUp() {
+        assumeTrue("Set cxf.xjc.scaling to run the scaling test", isEnabled());
+        pluginLevel = PLUGIN_LOG.getLevel();
+        PLUGIN_LOG.setLevel(Level.WARNING);
+    }
+
+    @After
+    public void tearDown() {
+        PLUGIN_LOG.setLevel(pluginLevel);
+    }
+
+    private static boolean isEnabled() {
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(PREFIX) || name.equals(PREFIX.substring(0, PREFIX.length() - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testGenerationWithinBudget() throws Exception {
+        SchemaSynthesizer synthesizer = new SchemaSynthesizer()
+            .types(Integer.getInteger(PREFIX + "types", 400))
+            .namespaces(Integer.getInteger(PREFIX + "namespaces", 8))
+            .imports(Integer.getInteger(PREFIX + "imports", 3))
+            .depth(Integer.getInteger(PREFIX + "depth", 3))
+            .enumSize(Integer.getInteger(PREFIX + "enumSize", 20));
+        long maxTime = Long.getLong(PREFIX + "maxTime", 60000);
+        long maxHeap = Long.getLong(PREFIX + "maxHeap", 1024);
+
+        List<File> schemas = synthesizer.write(folder.newFolder("schemas"));
+        File outputDir = folder.newFolder("generated");
+        List<String> args = new ArrayList<>(PLUGINS);
+        args.addAll(Arrays.asList("-d", outputDir.getAbsolutePath()));
+        for (File schema : schemas) {
+            args.add(schema.getAbsolutePath());
+        }
+        XJCErrorListener listener = new XJCErrorListener(new XJCBuildContext());
+        XSDToJavaRunner runner = new XSDToJavaRunner(args.toArray(new String[0]), listener,
+            schemas.get(0), new ArrayList<String>());
+
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pools.add(pool);
+            }
+        }
+        System.gc();
+        for (MemoryPoolMXBean pool : pools) {
+            pool.resetPeakUsage();
+        }
+        long start = System.nanoTime();
+        int result = runner.run();
+        long time = (System.nanoTime() - start) / 1000000;
+        long heap = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            heap += pool.getPeakUsage().getUsed();
+        }
+        heap /= MB;
+
+        LOG.info("Generated code for " + synthesizer.getTypes() + " types in " + schemas.size()
+            + " schemas in " + time + " ms (budget " + maxTime + " ms), peak heap " + heap + " MB (budget "
+            + maxHeap + " MB)");
+        assertThat(listener.getFirstError(), is(nullValue()));
+        assertThat(result, is(0));
+        assertTrue("Not all types were generated", countClasses(outputDir) >= synthesizer.getTypes());
+        String type = new String(Files.readAllBytes(new File(outputDir, "xjc/cxf/scaling/ns0/Type0.java").toPath()),
+            StandardCharsets.UTF_8);
+        assertTrue("The plugins were not run", type.contains("public String toString()")
+            && type.contains("public Boolean getFlag()") && type.contains("PropertyChangeSupport"));
+        assertTrue("Generation took " + time + " ms, the budget is " + maxTime + " ms", time <= maxTime);
+        assertTrue("Generation used " + heap + " MB of heap, the budget is " + maxHeap + " MB",
+            heap <= maxHeap);
+    }
+
+    private static long countClasses(File dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir.toPath())) {
+            return files.filter(p -> p.toString().endsWith(".java")).count();
+        }
+    }
+}
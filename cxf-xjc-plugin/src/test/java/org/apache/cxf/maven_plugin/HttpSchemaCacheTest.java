@@ -0,0 +1,224 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.maven_plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpSchemaCacheTest {
+    private static final String SCHEMA = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\""
+        + " targetNamespace=\"http://cxf.apache.org/abc/test\">"
+        + "<xs:import namespace=\"http://schemas.xmlsoap.org/wsdl/\" schemaLocation=\"wsdl.xsd\"/>"
+        + "</xs:schema>";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private volatile int status;
+    private HttpServer server;
+    private String base;
+
+    @Before
+    public void startServer() throws Exception {
+        final byte[] wsdl = Files.readAllBytes(Paths.get(getClass().getResource("/schemas/configuration/wsdl.xsd")
+                                                         .toURI()));
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            if (status != 0) {
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = path.endsWith("/wsdl.xsd") ? wsdl : SCHEMA.getBytes(StandardCharsets.UTF_8);
+            String etag = "\"" + body.length + "\"";
+            exchange.getResponseHeaders().add("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        base = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testConditionalGet() throws Exception {
+        File dir = folder.newFolder();
+        String url = base + "test.xsd";
+        assertThat(read(new HttpSchemaCache(dir, false), url), is(SCHEMA));
+
+        // a cache is only revalidated the first time it opens a document
+        HttpSchemaCache cache = new HttpSchemaCache(dir, false);
+        assertThat(read(cache, url), is(SCHEMA));
+        assertThat(read(cache, url), is(SCHEMA));
+        assertThat(requests.get("/test.xsd").get(), is(2));
+        assertThat(notModified.get(), is(1));
+    }
+
+    @Test
+    public void testOffline() throws Exception {
+        File dir = folder.newFolder();
+        read(new HttpSchemaCache(dir, false), base + "test.xsd");
+        server.stop(0);
+
+        assertThat(read(new HttpSchemaCache(dir, true), base + "test.xsd"), is(SCHEMA));
+        try {
+            read(new HttpSchemaCache(dir, true), base + "wsdl.xsd");
+            fail("wsdl.xsd is not cached");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testUnreachableServer() throws Exception {
+        File dir = folder.newFolder();
+        String url = base + "test.xsd";
+        read(new HttpSchemaCache(dir, false), url);
+        server.stop(0);
+
+        // the cached copy is used, with a warning
+        HttpSchemaCache cache = new HttpSchemaCache(dir, false);
+        assertThat(read(cache, url), is(SCHEMA));
+        List<String> warnings = cache.takeWarnings();
+        assertThat(warnings.size(), is(1));
+        assertTrue(warnings.get(0), warnings.get(0).contains(url));
+        assertThat(cache.takeWarnings().size(), is(0));
+        try {
+            read(cache, base + "wsdl.xsd");
+            fail("wsdl.xsd is not cached");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testHttpErrorIsReported() throws Exception {
+        File dir = folder.newFolder();
+        String url = base + "test.xsd";
+        read(new HttpSchemaCache(dir, false), url);
+
+        // a schema that is gone is not taken from the cache
+        for (int code : new int[] {404, 410, 503}) {
+            status = code;
+            HttpSchemaCache cache = new HttpSchemaCache(dir, false);
+            try {
+                read(cache, url);
+                fail("The cached copy was used for HTTP status " + code);
+            } catch (IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(String.valueOf(code)));
+            }
+            assertThat(cache.takeWarnings().size(), is(0));
+        }
+    }
+
+    @Test
+    public void testRunsShareCache() throws Exception {
+        String cacheDir = folder.newFolder().getAbsolutePath();
+        assertThat(HttpSchemaCache.get(new File(cacheDir), false), is(HttpSchemaCache.get(new File(cacheDir), false)));
+        String xsd = base + "test.xsd";
+        assertThat(run(XSDToJavaRunner.SCHEMA_CACHE, cacheDir, xsd), is(0));
+        assertThat(run(XSDToJavaRunner.SCHEMA_CACHE, cacheDir, xsd), is(0));
+
+        // the second run does not revalidate the documents; the imports are also read by the
+        // schema checker of XJC, which does not resolve them before asking the cache
+        assertThat(requests.get("/test.xsd").get(), is(1));
+        assertThat(notModified.get(), is(0));
+    }
+
+    @Test
+    public void testRunnerUsesCache() throws Exception {
+        String cacheDir = folder.newFolder().getAbsolutePath();
+        String xsd = base + "test.xsd";
+        assertThat(run(XSDToJavaRunner.SCHEMA_CACHE, cacheDir, xsd), is(0));
+        server.stop(0);
+
+        // the schema and its import are read from the cache
+        assertThat(run(XSDToJavaRunner.SCHEMA_CACHE, cacheDir, XSDToJavaRunner.OFFLINE, xsd), is(0));
+        assertTrue(new File(folder.getRoot(), "out/org/xmlsoap/schemas/wsdl/ObjectFactory.java").isFile());
+    }
+
+    private int run(String... args) throws Exception {
+        String[] all = new String[args.length + 2];
+        all[0] = "-d";
+        all[1] = new File(folder.getRoot(), "out").getAbsolutePath();
+        new File(all[1]).mkdirs();
+        System.arraycopy(args, 0, all, 2, args.length);
+        XSDToJavaRunner runner = new XSDToJavaRunner(all, new XJCErrorListener(new XJCBuildContext()),
+                                                     new File("test.xsd"), new ArrayList<String>());
+        int i = runner.run();
+        assertThat(runner.getLoadedSchemas(), hasItems(base + "test.xsd", base + "wsdl.xsd"));
+        return i;
+    }
+
+    private static String read(HttpSchemaCache cache, String url) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = cache.open(url)) {
+            byte[] buf = new byte[8192];
+            int len = in.read(buf);
+            while (len != -1) {
+                out.write(buf, 0, len);
+                len = in.read(buf);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
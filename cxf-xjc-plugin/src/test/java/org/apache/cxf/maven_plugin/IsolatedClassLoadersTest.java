@@ -0,0 +1,100 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IsolatedClassLoadersTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testIsolatedRunsShareTheLoader() throws Exception {
+        MojoFixture fixture = new MojoFixture(folder.newFolder("project"))
+            .set("isolated", true)
+            .set("pluginArtifacts", MojoFixture.getPluginArtifacts());
+        File xsd = fixture.writeSchema("a.xsd", "urn:example:a", MojoFixture.complexType("A"));
+        ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+
+        Map<String, ClassLoader> before = IsolatedClassLoaders.getLoaders();
+        fixture.execute(MojoFixture.option(xsd));
+        Map<String, ClassLoader> loaders = IsolatedClassLoaders.getLoaders();
+        loaders.keySet().removeAll(before.keySet());
+        assertEquals(1, loaders.size());
+        assertTrue(fixture.readOutput().containsKey("example/a/A.java"));
+        assertSame(contextLoader, Thread.currentThread().getContextClassLoader());
+
+        // the next run of the same plugin uses the loader of the first one
+        fixture.writeSchema("a.xsd", "urn:example:a", MojoFixture.complexType("A") + MojoFixture.complexType("B"));
+        fixture.execute(MojoFixture.option(xsd));
+        assertEquals(2, fixture.getRunCount());
+        assertTrue(fixture.readOutput().containsKey("example/a/B.java"));
+        Map.Entry<String, ClassLoader> loader = loaders.entrySet().iterator().next();
+        Map<String, ClassLoader> after = IsolatedClassLoaders.getLoaders();
+        assertSame(loader.getValue(), after.get(loader.getKey()));
+        after.keySet().removeAll(before.keySet());
+        assertEquals(loaders, after);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedLoaderIsClosed() throws Exception {
+        File jar = folder.newFile("resource.jar");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("resource.txt"));
+            out.write("resource".getBytes(StandardCharsets.UTF_8));
+        }
+        URL[] classPath = {jar.toURI().toURL()};
+
+        Map<String, ClassLoader> loaders = new HashMap<>();
+        for (String key : new String[] {"first", "second", "third", "fourth"}) {
+            loaders.put(key, IsolatedClassLoaders.get(key, classPath));
+        }
+        assertNotNull(loaders.get("first").getResource("resource.txt"));
+        // using the first loader makes the second the least recently used one
+        assertSame(loaders.get("first"), IsolatedClassLoaders.get("first", classPath));
+        IsolatedClassLoaders.get("fifth", classPath);
+
+        List<String> keys = new ArrayList<>(IsolatedClassLoaders.getLoaders().keySet());
+        assertEquals(4, keys.size());
+        assertFalse(keys.contains("second"));
+        assertNull(loaders.get("second").getResource("resource.txt"));
+        assertNotNull(loaders.get("first").getResource("resource.txt"));
+        assertNotSame(loaders.get("second"), IsolatedClassLoaders.get("second", classPath));
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Build;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.sonatype.plexus.build.incremental.BuildContext;
+import org.sonatype.plexus.build.incremental.DefaultBuildContext;
+
+/**
+ * A project directory and the configuration of the plugin in its pom.  Every execution
+ * gets a new mojo, as in Maven.  The mojo runs XJC in the test JVM unless it is configured
+ * to run isolated or forked, and records the messages it logs.
+ */
+final class MojoFixture {
+    final File basedir;
+    final File outputDir;
+    final File markerDirectory;
+    final List<String> infos = Collections.synchronizedList(new ArrayList<>());
+    final List<String> debugs = Collections.synchronizedList(new ArrayList<>());
+    final List<String> classPath = new ArrayList<>();
+    BuildContext buildContext = new DefaultBuildContext();
+    boolean debug;
+
+    private final Map<String, Object> parameters = new HashMap<>();
+
+    MojoFixture(File basedir) {
+        this.basedir = basedir;
+        this.outputDir = new File(basedir, "target/generated/src/main/java");
+        this.markerDirectory = new File(basedir, "target/cxf-xsd-plugin-markers");
+        parameters.put("threads", 1);
+        parameters.put("javaExecutable", System.getProperty("java.home") + "/bin/java");
+    }
+
+    /**
+     * Sets a parameter of the mojo, e.g. "batch".
+     */
+    MojoFixture set(String parameter, Object value) {
+        parameters.put(parameter, value);
+        return this;
+    }
+
+    File write(String path, String content) throws IOException {
+        File file = new File(basedir, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Writes a schema document with the given target namespace, bound to the tns prefix, and
+     * content.  The imports are pairs of a namespace and a schema location; the namespaces
+     * are bound to the prefixes i0, i1 and so on.
+     */
+    File writeSchema(String path, String namespace, String content, String... imports) throws IOException {
+        StringBuilder b = new StringBuilder(1000);
+        b.append("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" xmlns:tns=\"").append(namespace)
+            .append('"');
+        for (int x = 0; x < imports.length; x += 2) {
+            b.append(" xmlns:i").append(x / 2).append("=\"").append(imports[x]).append('"');
+        }
+        b.append(" targetNamespace=\"").append(namespace).append("\" elementFormDefault=\"qualified\">\n");
+        for (int x = 0; x < imports.length; x += 2) {
+            b.append("  <xs:import namespace=\"").append(imports[x]).append("\" schemaLocation=\"")
+                .append(imports[x + 1]).append("\"/>\n");
+        }
+        return write(path, b.append(content).append("</xs:schema>\n").toString());
+    }
+
+    /**
+     * A complex type with a string element and an element of each of the given types.
+     */
+    static String complexType(String name, String... elementTypes) {
+        StringBuilder b = new StringBuilder(200);
+        b.append("  <xs:complexType name=\"").append(name).append("\">\n    <xs:sequence>\n")
+            .append("      <xs:element name=\"name\" type=\"xs:string\"/>\n");
+        for (int x = 0; x < elementTypes.length; x++) {
+            b.append("      <xs:element name=\"ref").append(x).append("\" type=\"").append(elementTypes[x])
+                .append("\"/>\n");
+        }
+        return b.append("    </xs:sequence>\n  </xs:complexType>\n").toString();
+    }
+
+    /**
+     * The entries of the test classpath as the plugin dependencies, for the runs outside the
+     * class loader of the test, followed by the given files.
+     */
+    static List<Artifact> getPluginArtifacts(File... files) {
+        List<File> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            entries.add(new File(entry));
+        }
+        entries.addAll(Arrays.asList(files));
+        List<Artifact> artifacts = new ArrayList<>();
+        for (File entry : entries) {
+            Artifact artifact = new DefaultArtifact("test", entry.getName(), "1", "compile", "jar", null,
+                                                    new DefaultArtifactHandler("jar"));
+            artifact.setFile(entry);
+            artifacts.add(artifact);
+        }
+        return artifacts;
+    }
+
+    static XsdOption option(File xsd) {
+        XsdOption option = new XsdOption();
+        option.setXsd(xsd.getAbsolutePath());
+        return option;
+    }
+
+    static XsdOption dirOption(File xsdDir) {
+        XsdOption option = new XsdOption();
+        option.setXsdDir(xsdDir.getAbsolutePath());
+        return option;
+    }
+
+    void execute(XsdOption... options) throws MojoExecutionException {
+        AbstractXSDToJavaMojo mojo = new FixtureMojo();
+        MavenProject project = new MavenProject();
+        project.setFile(new File(basedir, "pom.xml"));
+        Build build = new Build();
+        build.setDirectory(new File(basedir, "target").getAbsolutePath());
+        build.setOutputDirectory(new File(basedir, "target/classes").getAbsolutePath());
+        project.setBuild(build);
+        mojo.project = project;
+        mojo.xsdOptions = options;
+        mojo.markerDirectory = markerDirectory;
+        mojo.setLog(new RecordingLog());
+        try {
+            set(mojo, "buildContext", buildContext);
+            for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+                set(mojo, parameter.getKey(), parameter.getValue());
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        mojo.execute();
+    }
+
+    private static void set(AbstractXSDToJavaMojo mojo, String name, Object value)
+        throws ReflectiveOperationException {
+        Field field = AbstractXSDToJavaMojo.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+
+    /**
+     * The number of runs the last executions reported in their summaries.
+     */
+    int getRunCount() {
+        int runs = 0;
+        synchronized (infos) {
+            for (String info : infos) {
+                if (info.startsWith("Generated code for ")) {
+                    runs += Integer.parseInt(info.substring("Generated code for ".length(), info.indexOf(" schema")));
+                }
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * The files of the output directory and their content, by their path relative to it.
+     */
+    Map<String, String> readOutput() throws IOException {
+        return read(outputDir);
+    }
+
+    static Map<String, String> read(File dir) throws IOException {
+        Map<String, String> files = new TreeMap<>();
+        if (!dir.isDirectory()) {
+            return files;
+        }
+        Path root = dir.toPath();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>)paths.filter(Files::isRegularFile)::iterator) {
+                files.put(root.relativize(path).toString().replace(File.separatorChar, '/'),
+                          new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+            }
+        }
+        return files;
+    }
+
+    private final class FixtureMojo extends AbstractXSDToJavaMojo {
+        @Override
+        String getOutputDir() {
+            return outputDir.getAbsolutePath();
+        }
+
+        @Override
+        protected List<String> getClasspathElements() {
+            return new ArrayList<>(classPath);
+        }
+
+        /**
+         * Keeps the runs in the test JVM on Java 9 and later unless they are configured to
+         * be forked, which then get the JVM arguments they need.
+         */
+        @Override
+        protected boolean isJava9Compatible() {
+            return Boolean.TRUE.equals(parameters.get("fork")) && super.isJava9Compatible();
+        }
+    }
+
+    private final class RecordingLog implements Log {
+        public boolean isDebugEnabled() {
+            return debug;
+        }
+
+        public void debug(CharSequence content) {
+            debugs.add(content.toString());
+        }
+
+        public void debug(CharSequence content, Throwable error) {
+            debugs.add(content.toString());
+        }
+
+        public void debug(Throwable error) {
+            debugs.add(error.toString());
+        }
+
+        public boolean isInfoEnabled() {
+            return true;
+        }
+
+        public void info(CharSequence content) {
+            infos.add(content.toString());
+        }
+
+        public void info(CharSequence content, Throwable error) {
+            infos.add(content.toString());
+        }
+
+        public void info(Throwable error) {
+            infos.add(error.toString());
+        }
+
+        public boolean isWarnEnabled() {
+            return true;
+        }
+
+        public void warn(CharSequence content) {
+            infos.add(content.toString());
+        }
+
+        public void warn(CharSequence content, Throwable error) {
+            infos.add(content.toString());
+        }
+
+        public void warn(Throwable error) {
+            infos.add(error.toString());
+        }
+
+        public boolean isErrorEnabled() {
+            return true;
+        }
+
+        public void error(CharSequence content) {
+            infos.add(content.toString());
+        }
+
+        public void error(CharSequence content, Throwable error) {
+            infos.add(content.toString());
+        }
+
+        public void error(Throwable error) {
+            infos.add(error.toString());
+        }
+    }
+}
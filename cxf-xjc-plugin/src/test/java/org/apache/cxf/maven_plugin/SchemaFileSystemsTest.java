@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SchemaFileSystemsTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testJarEntries() throws Exception {
+        File jar = folder.newFile("schemas.jar");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (String name : Arrays.asList("schemas/a.xsd", "schemas/with space.xsd")) {
+                out.putNextEntry(new ZipEntry(name));
+                out.write(name.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        String base = "jar:" + jar.toURI() + "!/schemas/";
+
+        try (SchemaFileSystems fileSystems = new SchemaFileSystems()) {
+            assertEquals("schemas/a.xsd", read(fileSystems.open(base + "a.xsd")));
+            assertEquals("schemas/with space.xsd", read(fileSystems.open(base + "with%20space.xsd")));
+            assertEquals("schemas/a.xsd", read(fileSystems.open(base + "a.xsd")));
+            assertEquals(3, fileSystems.getEntryCount());
+            assertEquals(1, fileSystems.getArchiveCount());
+        }
+    }
+
+    @Test
+    public void testLargeFile() throws Exception {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        for (int x = 0; x < content.length; x++) {
+            content[x] = (byte)x;
+        }
+        File file = folder.newFile("large.xsd");
+        Files.write(file.toPath(), content);
+
+        try (SchemaFileSystems fileSystems = new SchemaFileSystems()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (InputStream in = fileSystems.open(file.toURI().toString())) {
+                copy(in, out);
+            }
+            assertArrayEquals(content, out.toByteArray());
+            assertEquals(1, fileSystems.getFileCount());
+            // the file is not held open, so it can be edited or deleted
+            assertTrue(file.delete());
+        }
+    }
+
+    private static String read(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream s = in) {
+            copy(s, out);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void copy(InputStream in, ByteArrayOutputStream out) throws Exception {
+        byte[] buf = new byte[5000];
+        int len = in.read(buf);
+        while (len != -1) {
+            out.write(buf, 0, len);
+            len = in.read(buf);
+        }
+    }
+}
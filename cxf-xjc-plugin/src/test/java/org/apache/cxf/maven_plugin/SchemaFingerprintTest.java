@@ -0,0 +1,67 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.maven_plugin;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class SchemaFingerprintTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTripAndContentChange() throws Exception {
+        File xsd = folder.newFile("a.xsd");
+        Files.write(xsd.toPath(), "<schema/>".getBytes(StandardCharsets.UTF_8));
+
+        SchemaFingerprint fingerprint = create(xsd);
+        File marker = folder.newFile(".a.xsd.DONE");
+        fingerprint.write(marker);
+        assertEquals(fingerprint, SchemaFingerprint.read(marker));
+
+        // a new timestamp with the same content does not change the fingerprint
+        xsd.setLastModified(xsd.lastModified() + 10000);
+        assertEquals(fingerprint, create(xsd));
+
+        Files.write(xsd.toPath(), "<schema></schema>".getBytes(StandardCharsets.UTF_8));
+        assertNotEquals(fingerprint, create(xsd));
+    }
+
+    @Test
+    public void testEmptyMarker() throws Exception {
+        assertNull(SchemaFingerprint.read(folder.newFile(".old.DONE")));
+    }
+
+    private static SchemaFingerprint create(File xsd) {
+        SchemaFingerprint fingerprint = new SchemaFingerprint();
+        fingerprint.addArguments(Arrays.asList("-p", "org.example"));
+        fingerprint.addFile(xsd);
+        return fingerprint;
+    }
+}
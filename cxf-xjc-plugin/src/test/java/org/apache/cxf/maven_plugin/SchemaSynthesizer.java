@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a set of schemas of a given size for the scaling tests.  The complex types are
+ * spread over a number of namespaces, one schema document each, which import a number of
+ * the following namespaces and refer to their types.  Every type has elements of all the
+ * kinds the plugins treat specially: defaults of simple types and enums, booleans, lists,
+ * documentation and anonymous complex types nested to a given depth.
+ */
+final class SchemaSynthesizer {
+    static final String NAMESPACE = "urn:cxf-xjc:scaling:ns";
+
+    private int types = 100;
+    private int namespaces = 1;
+    private int imports;
+    private int depth = 1;
+    private int enumSize = 5;
+
+    SchemaSynthesizer types(int count) {
+        this.types = count;
+        return this;
+    }
+
+    SchemaSynthesizer namespaces(int count) {
+        this.namespaces = count;
+        return this;
+    }
+
+    /**
+     * The number of other namespaces every schema imports, at most the number of
+     * namespaces minus one.
+     */
+    SchemaSynthesizer imports(int count) {
+        this.imports = count;
+        return this;
+    }
+
+    /**
+     * How deep the anonymous complex types in every type are nested.
+     */
+    SchemaSynthesizer depth(int levels) {
+        this.depth = levels;
+        return this;
+    }
+
+    /**
+     * The number of values of the enum every namespace defines.
+     */
+    SchemaSynthesizer enumSize(int values) {
+        this.enumSize = values;
+        return this;
+    }
+
+    int getTypes() {
+        return types;
+    }
+
+    /**
+     * Writes one schema for every namespace to the given directory and returns them.
+     */
+    List<File> write(File dir) throws IOException {
+        if (types < namespaces || namespaces < 1 || imports >= namespaces || enumSize < 1) {
+            throw new IllegalArgumentException("Cannot create " + types + " types in " + namespaces
+                + " namespaces importing " + imports + " others with " + enumSize + " enum values");
+        }
+        List<File> files = new ArrayList<>(namespaces);
+        for (int n = 0; n < namespaces; n++) {
+            File file = new File(dir, "ns" + n + ".xsd");
+            Files.write(file.toPath(), create(n).getBytes(StandardCharsets.UTF_8));
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * Creates the schema of the given namespace.
+     */
+    String create(int n) {
+        int count = getTypeCount(n);
+        StringBuilder b = new StringBuilder(count * (1200 + depth * 300 + imports * 100));
+        b.append("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" xmlns:tns=\"")
+            .append(NAMESPACE).append(n).append('"');
+        for (int i = 1; i <= imports; i++) {
+            b.append(" xmlns:i").append(i).append("=\"").append(NAMESPACE).append(getImport(n, i)).append('"');
+        }
+        b.append(" targetNamespace=\"").append(NAMESPACE).append(n)
+            .append("\" elementFormDefault=\"qualified\">\n");
+        for (int i = 1; i <= imports; i++) {
+            int imported = getImport(n, i);
+            b.append("  <xs:import namespace=\"").append(NAMESPACE).append(imported)
+                .append("\" schemaLocation=\"ns").append(imported).append(".xsd\"/>\n");
+        }
+        b.append("  <xs:simpleType name=\"Code\">\n")
+            .append("    <xs:restriction base=\"xs:string\">\n");
+        for (int v = 0; v < enumSize; v++) {
+            b.append("      <xs:enumeration value=\"V").append(v).append("\"/>\n");
+        }
+        b.append("    </xs:restriction>\n")
+            .append("  </xs:simpleType>\n");
+        for (int t = 0; t < count; t++) {
+            complexType(b, n, t, count);
+        }
+        return b.append("</xs:schema>\n").toString();
+    }
+
+    private void complexType(StringBuilder b, int n, int t, int count) {
+        b.append("  <xs:complexType name=\"Type").append(t).append("\">\n");
+        documentation(b, "    ", "Synthetic type " + t + " of namespace " + n + ".");
+        b.append("    <xs:sequence>\n")
+            .append("      <xs:element minOccurs=\"0\" name=\"text\" type=\"xs:string\" default=\"value")
+            .append(t).append("\"/>\n")
+            .append("      <xs:element minOccurs=\"0\" name=\"number\" type=\"xs:int\" default=\"")
+            .append(t).append("\"/>\n")
+            .append("      <xs:element minOccurs=\"0\" name=\"flag\" type=\"xs:boolean\" default=\"true\"/>\n")
+            .append("      <xs:element minOccurs=\"0\" name=\"code\" type=\"tns:Code\" default=\"V")
+            .append(t % enumSize).append("\"/>\n")
+            .append("      <xs:element minOccurs=\"0\" name=\"item\" type=\"xs:string\" maxOccurs=\"unbounded\"/>\n")
+            .append("      <xs:element minOccurs=\"0\" name=\"next\" type=\"tns:Type").append((t + 1) % count)
+            .append("\"/>\n");
+        for (int i = 1; i <= imports; i++) {
+            b.append("      <xs:element minOccurs=\"0\" name=\"external").append(i).append("\" type=\"i")
+                .append(i).append(":Type").append(t % getTypeCount(getImport(n, i))).append("\"/>\n");
+        }
+        nested(b, "      ", 1);
+        b.append("    </xs:sequence>\n")
+            .append("    <xs:attribute name=\"id\" type=\"xs:anySimpleType\"/>\n")
+            .append("    <xs:attribute name=\"enabled\" type=\"xs:boolean\" default=\"true\"/>\n")
+            .append("  </xs:complexType>\n")
+            .append("  <xs:element name=\"type").append(t).append("\" type=\"tns:Type").append(t).append("\"/>\n");
+    }
+
+    private void nested(StringBuilder b, String indent, int level) {
+        if (level > depth) {
+            return;
+        }
+        b.append(indent).append("<xs:element minOccurs=\"0\" name=\"level").append(level).append("\">\n");
+        documentation(b, indent + "  ", "Nested level " + level + ".");
+        b.append(indent).append("  <xs:complexType>\n")
+            .append(indent).append("    <xs:sequence>\n")
+            .append(indent).append("      <xs:element minOccurs=\"0\" name=\"value\" type=\"xs:string\"")
+            .append(" default=\"level").append(level).append("\"/>\n")
+            .append(indent).append("      <xs:element minOccurs=\"0\" name=\"code\" type=\"tns:Code\"")
+            .append(" default=\"V0\"/>\n");
+        nested(b, indent + "      ", level + 1);
+        b.append(indent).append("    </xs:sequence>\n")
+            .append(indent).append("    <xs:attribute name=\"active\" type=\"xs:boolean\" default=\"false\"/>\n")
+            .append(indent).append("  </xs:complexType>\n")
+            .append(indent).append("</xs:element>\n");
+    }
+
+    private int getTypeCount(int n) {
+        return types / namespaces + (n < types % namespaces ? 1 : 0);
+    }
+
+    private int getImport(int n, int i) {
+        return (n + i) % namespaces;
+    }
+
+    private static void documentation(StringBuilder b, String indent, String text) {
+        b.append(indent).append("<xs:annotation><xs:documentation>").append(text)
+            .append("</xs:documentation></xs:annotation>\n");
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xml.sax.ErrorHandler;
+
+import com.sun.tools.xjc.Options;
+import com.sun.tools.xjc.Plugin;
+import com.sun.tools.xjc.outline.Outline;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+public class TimedPluginTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testTimesAreAdded() throws Exception {
+        SleepingPlugin plugin = new SleepingPlugin();
+        Map<String, Long> times = new HashMap<>();
+        TimedPlugin timed = new TimedPlugin(plugin, "a.xsd", times);
+        assertEquals("Xsleep", timed.getOptionName());
+        assertEquals(plugin.getUsage(), timed.getUsage());
+        assertEquals(1, timed.parseArgument(null, new String[] {"-Xsleep-arg"}, 0));
+        assertFalse(timed.isCustomizationTagName("urn:example", "sleep"));
+
+        Options opt = new Options();
+        assertTrue(timed.run(null, opt, null));
+        long first = times.get("-Xsleep");
+        assertTrue(first >= 20);
+        assertTrue(timed.run(null, opt, null));
+        assertTrue(times.get("-Xsleep") >= first + 20);
+        assertEquals(1, times.size());
+        assertEquals(2, plugin.runs);
+        assertSame(opt, plugin.options);
+    }
+
+    @Test
+    public void testRunIsRecorded() throws Exception {
+        List<Map<String, Object>> events = GenerationEventTest.record(folder.newFile("recording.jfr").toPath(),
+                                                                      "org.apache.cxf.xjc.PluginRun", () ->
+            new TimedPlugin(new SleepingPlugin(), "a.xsd", new HashMap<>()).run(null, new Options(), null));
+        assumeNotNull(events);
+        assertEquals(1, events.size());
+        Map<String, Object> event = events.get(0);
+        assertEquals("a.xsd", event.get("schema"));
+        assertEquals("-Xsleep", event.get("plugin"));
+        assertEquals(SleepingPlugin.class.getName(), event.get("pluginClass"));
+        assertTrue(((Duration)event.get("duration")).toMillis() >= 20);
+    }
+
+    private static final class SleepingPlugin extends Plugin {
+        int runs;
+        Options options;
+
+        @Override
+        public String getOptionName() {
+            return "Xsleep";
+        }
+
+        @Override
+        public String getUsage() {
+            return "  -Xsleep : sleeps for 20 ms";
+        }
+
+        @Override
+        public int parseArgument(Options opt, String[] args, int i) {
+            return "-Xsleep-arg".equals(args[i]) ? 1 : 0;
+        }
+
+        @Override
+        public boolean run(Outline outline, Options opt, ErrorHandler errorHandler) {
+            runs++;
+            options = opt;
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }
+    }
+}
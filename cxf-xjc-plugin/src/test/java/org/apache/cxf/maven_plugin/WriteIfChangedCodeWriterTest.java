@@ -0,0 +1,67 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.sun.codemodel.JCodeModel;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+public class WriteIfChangedCodeWriterTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testChangedFilesAreWrittenThroughBuildContext() throws Exception {
+        final List<String> written = new ArrayList<>();
+        XJCBuildContext context = new XJCBuildContext() {
+            @Override
+            public OutputStream newFileOutputStream(File file) throws IOException {
+                written.add(file.getName());
+                return super.newFileOutputStream(file);
+            }
+        };
+        File target = folder.newFolder("generated");
+
+        JCodeModel model = new JCodeModel();
+        model._class("org.example.A");
+        model._class("org.example.B");
+        model.build(new WriteIfChangedCodeWriter(target, false, "UTF-8", context));
+        assertEquals(Arrays.asList("A.java", "B.java"), written);
+
+        written.clear();
+        model = new JCodeModel();
+        model._class("org.example.A");
+        model._class("org.example.B")._extends(Exception.class);
+        WriteIfChangedCodeWriter writer = new WriteIfChangedCodeWriter(target, false, "UTF-8", context);
+        model.build(writer);
+        assertEquals(Arrays.asList("B.java"), written);
+        assertEquals(1, writer.getUnchangedCount());
+        assertEquals(Arrays.asList("org/example/A.java", "org/example/B.java"), writer.getFiles());
+    }
+}
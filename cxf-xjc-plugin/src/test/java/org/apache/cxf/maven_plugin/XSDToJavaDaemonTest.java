@@ -0,0 +1,190 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.sonatype.plexus.build.incremental.BuildContext;
+import org.sonatype.plexus.build.incremental.DefaultBuildContext;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class XSDToJavaDaemonTest {
+    private static final String NAMESPACE = "urn:example:a";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStartReuseAndRestart() throws Exception {
+        File daemons = new File(folder.getRoot(), "daemons");
+        File dependency = folder.newFile("dependency.jar");
+        new JarOutputStream(new FileOutputStream(dependency)).close();
+        MojoFixture fixture = createFixture(daemons, 5, dependency);
+
+        fixture.execute(option(fixture, "A"));
+        assertEquals(1, getStarts(fixture));
+        assertTrue(fixture.readOutput().containsKey("example/a/A.java"));
+        if (supportsPosix(daemons)) {
+            assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(daemons.toPath())));
+        }
+        List<File> portFiles = getPortFiles(daemons);
+        assertEquals(1, portFiles.size());
+        String published = XSDToJavaDaemon.read(portFiles.get(0));
+
+        // the next execution uses the running daemon
+        fixture.execute(option(fixture, "A", "B"));
+        assertEquals(1, getStarts(fixture));
+        assertEquals(published, XSDToJavaDaemon.read(portFiles.get(0)));
+        assertTrue(fixture.readOutput().containsKey("example/a/B.java"));
+
+        // a rebuilt dependency gets a daemon of its own
+        assertTrue(dependency.setLastModified(dependency.lastModified() - 60000));
+        fixture.execute(option(fixture, "A", "B", "C"));
+        assertEquals(2, getStarts(fixture));
+        assertEquals(2, getPortFiles(daemons).size());
+        assertTrue(fixture.readOutput().containsKey("example/a/C.java"));
+    }
+
+    @Test
+    public void testIdleShutdown() throws Exception {
+        File daemons = new File(folder.getRoot(), "daemons");
+        MojoFixture fixture = createFixture(daemons, 1);
+        fixture.execute(option(fixture, "A"));
+        File portFile = getPortFiles(daemons).get(0);
+
+        long end = System.currentTimeMillis() + 60000;
+        while (portFile.exists()) {
+            assertTrue("The daemon did not stop", System.currentTimeMillis() < end);
+            Thread.sleep(200);
+        }
+        assertFalse(XSDToJavaDaemon.isRunning(portFile));
+
+        // a stopped daemon is started again when needed
+        fixture.execute(option(fixture, "A", "B"));
+        assertEquals(2, getStarts(fixture));
+        assertTrue(fixture.readOutput().containsKey("example/a/B.java"));
+    }
+
+    @Test
+    public void testWrongTokenIsRejected() throws Exception {
+        File daemons = new File(folder.getRoot(), "daemons");
+        MojoFixture fixture = createFixture(daemons, 5);
+        fixture.execute(option(fixture, "A"));
+        File portFile = getPortFiles(daemons).get(0);
+        String published = XSDToJavaDaemon.read(portFile);
+
+        File forged = new File(folder.getRoot(), "forged.port");
+        Files.write(forged.toPath(), (published.substring(0, published.indexOf(' ')) + " "
+            + XSDToJavaDaemon.newToken()).getBytes(StandardCharsets.UTF_8));
+        File output = new File(folder.getRoot(), "forged-output");
+        String[] args = {"-d", output.getAbsolutePath(), new File(fixture.basedir, "a.xsd").toURI().toString()};
+        GenerationTask task = new GenerationTask(new XsdOption(), args[2], new String[] {args[2]}, null);
+        DiagnosticsReader reader = new DiagnosticsReader(new SystemStreamLog(), Collections.singletonList(task),
+            Collections.<BuildContext>singletonList(new DefaultBuildContext()));
+        try {
+            XSDToJavaDaemon.submit(forged, Arrays.asList(args), new ArrayList<String>(), reader);
+            fail("A job with a wrong token was accepted");
+        } catch (IOException e) {
+            // expected
+        }
+        assertFalse(output.exists());
+
+        // the daemon keeps serving the builds that know the token
+        fixture.execute(option(fixture, "A", "B"));
+        assertEquals(1, getStarts(fixture));
+        assertEquals(published, XSDToJavaDaemon.read(portFile));
+    }
+
+    @Test
+    public void testWritableDirectoryIsRejected() throws Exception {
+        File daemons = folder.newFolder("daemons");
+        assumeTrue(supportsPosix(daemons));
+        Files.setPosixFilePermissions(daemons.toPath(), PosixFilePermissions.fromString("rwxrwx---"));
+        MojoFixture fixture = createFixture(daemons, 1);
+        try {
+            fixture.execute(option(fixture, "A"));
+            fail("A daemon directory writable by the group was used");
+        } catch (MojoExecutionException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("must not be writable by other users"));
+        }
+        assertEquals(0, getStarts(fixture));
+        assertEquals(Collections.emptyList(), Arrays.asList(daemons.list()));
+    }
+
+    private MojoFixture createFixture(File daemons, int idleTimeout, File... dependencies) throws IOException {
+        return new MojoFixture(folder.newFolder("project"))
+            .set("fork", true)
+            .set("daemon", true)
+            .set("daemonDirectory", daemons)
+            .set("daemonIdleTimeout", idleTimeout)
+            .set("pluginArtifacts", MojoFixture.getPluginArtifacts(dependencies));
+    }
+
+    /**
+     * Writes a schema with the given types and returns an option for it.
+     */
+    private static XsdOption option(MojoFixture fixture, String... types) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (String type : types) {
+            content.append(MojoFixture.complexType(type));
+        }
+        return MojoFixture.option(fixture.writeSchema("a.xsd", NAMESPACE, content.toString()));
+    }
+
+    private static int getStarts(MojoFixture fixture) {
+        int starts = 0;
+        for (String info : new ArrayList<>(fixture.infos)) {
+            if (info.startsWith("Starting generator daemon")) {
+                starts++;
+            }
+        }
+        return starts;
+    }
+
+    private static List<File> getPortFiles(File daemons) {
+        File[] files = daemons.listFiles((dir, name) -> name.endsWith(".port"));
+        return files == null ? Collections.<File>emptyList() : Arrays.asList(files);
+    }
+
+    private static boolean supportsPosix(File file) throws IOException {
+        return Files.getFileStore(file.getParentFile().toPath())
+            .supportsFileAttributeView(PosixFileAttributeView.class);
+    }
+}
@@ -0,0 +1,297 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.LocalRepository;
+import org.sonatype.plexus.build.incremental.DefaultBuildContext;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class XSDToJavaMojoTest {
+    private static final String COMMON = "urn:example:common";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testBatchedOptionsRunOnce() throws Exception {
+        MojoFixture batched = createSharedSchemas(folder.newFolder("batched"));
+        batched.set("batch", true);
+        MojoFixture single = createSharedSchemas(folder.newFolder("single"));
+
+        batched.execute(options(batched));
+        single.execute(options(single));
+        assertEquals(1, batched.getRunCount());
+        assertEquals(2, single.getRunCount());
+
+        Map<String, String> output = batched.readOutput();
+        assertTrue(output.keySet().toString(), output.containsKey("example/a/A.java")
+            && output.containsKey("example/b/B.java") && output.containsKey("example/common/Common.java"));
+        assertEquals(withoutTimestamps(single.readOutput()), withoutTimestamps(output));
+        assertEquals(Arrays.asList(".a.xsd.DONE", ".a.xsd.FILES", ".b.xsd.DONE", ".b.xsd.FILES"),
+                     markers(batched));
+        assertEquals(markers(single), markers(batched));
+
+        // the markers of the batched run keep both options up to date
+        batched.execute(options(batched));
+        assertEquals(1, batched.getRunCount());
+
+        // a change to one schema of the group runs the whole group again
+        batched.writeSchema("b.xsd", "urn:example:b", MojoFixture.complexType("B", "i0:Common", "xs:int"),
+                            COMMON, "common.xsd");
+        batched.execute(options(batched));
+        assertEquals(2, batched.getRunCount());
+        assertTrue(batched.readOutput().get("example/b/B.java").contains("protected int ref1;"));
+    }
+
+    @Test
+    public void testXsdDirRunsOnce() throws Exception {
+        MojoFixture fixture = new MojoFixture(folder.newFolder("project"));
+        fixture.writeSchema("xsd/common.xsd", COMMON, MojoFixture.complexType("Common"));
+        fixture.writeSchema("xsd/a.xsd", "urn:example:a", MojoFixture.complexType("A", "i0:Common"),
+                            COMMON, "common.xsd");
+        fixture.writeSchema("xsd/b.xsd", "urn:example:b", MojoFixture.complexType("B", "i0:Common"),
+                            COMMON, "common.xsd");
+        File xsdDir = new File(fixture.basedir, "xsd");
+
+        // all files of the directory are compiled together
+        fixture.execute(MojoFixture.dirOption(xsdDir));
+        assertEquals(1, fixture.getRunCount());
+        Map<String, String> output = fixture.readOutput();
+        assertTrue(output.keySet().toString(), output.containsKey("example/a/A.java")
+            && output.containsKey("example/b/B.java") && output.containsKey("example/common/Common.java"));
+        assertEquals(Arrays.asList(".xsd_.DONE", ".xsd_.FILES"), markers(fixture));
+
+        fixture.execute(MojoFixture.dirOption(xsdDir));
+        assertEquals(1, fixture.getRunCount());
+
+        // a new file in the directory runs it again
+        fixture.writeSchema("xsd/c.xsd", "urn:example:c", MojoFixture.complexType("C", "i0:Common"),
+                            COMMON, "common.xsd");
+        fixture.execute(MojoFixture.dirOption(xsdDir));
+        assertEquals(2, fixture.getRunCount());
+        assertTrue(fixture.readOutput().containsKey("example/c/C.java"));
+    }
+
+    @Test
+    public void testRemovedTypeIsPruned() throws Exception {
+        MojoFixture fixture = new MojoFixture(folder.newFolder("project"));
+        File xsd = fixture.writeSchema("a.xsd", "urn:example:a",
+                                       MojoFixture.complexType("A") + MojoFixture.complexType("B"));
+        fixture.execute(MojoFixture.option(xsd));
+        File handWritten = new File(fixture.outputDir, "example/a/Helper.java");
+        Files.write(handWritten.toPath(), "package example.a;\nclass Helper {\n}\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(new File(fixture.outputDir, "example/a/B.java").isFile());
+
+        fixture.writeSchema("a.xsd", "urn:example:a", MojoFixture.complexType("A"));
+        fixture.execute(MojoFixture.option(xsd));
+        assertEquals(2, fixture.getRunCount());
+        assertEquals(Arrays.asList("example/a/A.java", "example/a/Helper.java", "example/a/ObjectFactory.java",
+                                   "example/a/package-info.java"),
+                     new ArrayList<>(fixture.readOutput().keySet()));
+        assertTrue(fixture.infos.contains("Deleted 1 files no longer generated for " + xsd.getAbsolutePath()));
+    }
+
+    @Test
+    public void testTimingsAreSummarized() throws Exception {
+        MojoFixture fixture = createSharedSchemas(folder.newFolder("project"));
+        fixture.execute(options(fixture));
+        assertEquals(1, count(fixture.infos, "Generated code for 2 schemas in "));
+        assertEquals(0, count(fixture.infos, "Slowest "));
+        assertEquals(0, count(fixture.debugs, "Slowest "));
+
+        // the slowest schemas are only listed for debugging
+        fixture.debug = true;
+        fixture.writeSchema("common.xsd", COMMON, MojoFixture.complexType("Common", "xs:int"));
+        fixture.execute(options(fixture));
+        assertEquals(2, count(fixture.infos, "Generated code for 2 schemas in "));
+        assertEquals(0, count(fixture.infos, "Slowest "));
+        assertEquals(1, count(fixture.debugs, "Slowest schemas: "));
+    }
+
+    @Test
+    public void testCacheKeyCoversClassPath() throws Exception {
+        File jar = new File(folder.getRoot(), "lib/bindings.jar");
+        writeJar(jar, "META-INF/sun-jaxb.episode");
+
+        MojoFixture first = createCachedProject(jar);
+        first.execute(MojoFixture.option(new File(first.basedir, "a.xsd")));
+        assertEquals(1, first.getRunCount());
+
+        // another checkout with the same classpath gets the sources from the cache
+        MojoFixture second = createCachedProject(jar);
+        second.execute(MojoFixture.option(new File(second.basedir, "a.xsd")));
+        assertEquals(0, second.getRunCount());
+        assertEquals(first.readOutput().keySet(), second.readOutput().keySet());
+
+        // but not with a rebuilt jar, which may bring other episodes
+        writeJar(jar, "META-INF/sun-jaxb.episode", "example/a/A.class");
+        MojoFixture third = createCachedProject(jar);
+        third.execute(MojoFixture.option(new File(third.basedir, "a.xsd")));
+        assertEquals(1, third.getRunCount());
+    }
+
+    @Test
+    public void testIncrementalBuildComparesArguments() throws Exception {
+        MojoFixture fixture = new MojoFixture(folder.newFolder("project"));
+        File xsd = fixture.writeSchema("a.xsd", "urn:example:a", MojoFixture.complexType("A"));
+        fixture.execute(MojoFixture.option(xsd));
+        assertEquals(1, fixture.getRunCount());
+
+        // the IDE reports no changes to the schema
+        fixture.buildContext = new DefaultBuildContext() {
+            @Override
+            public boolean isIncremental() {
+                return true;
+            }
+
+            @Override
+            public boolean hasDelta(File file) {
+                return false;
+            }
+        };
+        fixture.execute(MojoFixture.option(xsd));
+        assertEquals(1, fixture.getRunCount());
+
+        XsdOption option = MojoFixture.option(xsd);
+        option.setPackagename("org.example.other");
+        fixture.execute(option);
+        assertEquals(2, fixture.getRunCount());
+        assertTrue(fixture.readOutput().containsKey("org/example/other/A.java"));
+    }
+
+    @Test
+    public void testForkExitingWithoutResults() throws Exception {
+        File exe = new File("/bin/true");
+        assumeTrue(exe.canExecute());
+        MojoFixture fixture = new MojoFixture(folder.newFolder("project"))
+            .set("fork", true)
+            .set("javaExecutable", exe.getAbsolutePath())
+            .set("pluginArtifacts", MojoFixture.getPluginArtifacts());
+        File xsd = fixture.writeSchema("a.xsd", "urn:example:a", MojoFixture.complexType("A"));
+        long start = System.nanoTime();
+        try {
+            fixture.execute(MojoFixture.option(xsd));
+            fail("A runner that did not report was taken for a success");
+        } catch (MojoExecutionException e) {
+            assertEquals("The runner exited without reporting results", e.getMessage());
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 30);
+    }
+
+    /**
+     * Two schemas that import the same third one.  Options with these schemas only differ in
+     * the schema, so they can be batched.
+     */
+    private static MojoFixture createSharedSchemas(File basedir) throws Exception {
+        MojoFixture fixture = new MojoFixture(basedir);
+        fixture.writeSchema("common.xsd", COMMON, MojoFixture.complexType("Common"));
+        fixture.writeSchema("a.xsd", "urn:example:a", MojoFixture.complexType("A", "i0:Common"),
+                            COMMON, "common.xsd");
+        fixture.writeSchema("b.xsd", "urn:example:b", MojoFixture.complexType("B", "i0:Common"),
+                            COMMON, "common.xsd");
+        return fixture;
+    }
+
+    private MojoFixture createCachedProject(File jar) throws Exception {
+        final LocalRepository repository = new LocalRepository(new File(folder.getRoot(), "repository"));
+        RepositorySystemSession session = (RepositorySystemSession)Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[] {RepositorySystemSession.class}, (proxy, method, args) -> {
+                if ("getLocalRepository".equals(method.getName())) {
+                    return repository;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+        MojoFixture fixture = new MojoFixture(folder.newFolder())
+            .set("cache", true)
+            .set("cacheDirectory", new File(folder.getRoot(), "cache"))
+            .set("repoSession", session)
+            .set("pluginArtifacts", new ArrayList<Artifact>());
+        fixture.classPath.add(jar.getAbsolutePath());
+        fixture.writeSchema("a.xsd", "urn:example:a", MojoFixture.complexType("A"));
+        return fixture;
+    }
+
+    private static void writeJar(File jar, String... entries) throws IOException {
+        jar.getParentFile().mkdirs();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (String entry : entries) {
+                out.putNextEntry(new JarEntry(entry));
+            }
+        }
+    }
+
+    private static XsdOption[] options(MojoFixture fixture) {
+        return new XsdOption[] {MojoFixture.option(new File(fixture.basedir, "a.xsd")),
+                                MojoFixture.option(new File(fixture.basedir, "b.xsd"))};
+    }
+
+    /**
+     * The given output without the time XJC adds to the headers, which differs between runs.
+     */
+    private static Map<String, String> withoutTimestamps(Map<String, String> output) {
+        Map<String, String> files = new TreeMap<>();
+        for (Map.Entry<String, String> file : output.entrySet()) {
+            files.put(file.getKey(), file.getValue().replaceAll("// Generated on: [^\\n]*\\n", ""));
+        }
+        return files;
+    }
+
+    private static int count(List<String> messages, String prefix) {
+        int count = 0;
+        synchronized (messages) {
+            for (String message : messages) {
+                if (message.startsWith(prefix)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static List<String> markers(MojoFixture fixture) {
+        String[] names = fixture.markerDirectory.list();
+        Arrays.sort(names);
+        return Arrays.asList(names);
+    }
+}
@@ -20,7 +20,12 @@
 package org.apache.cxf.maven_plugin;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import org.sonatype.plexus.build.incremental.BuildContext;  
 
@@ -28,9 +33,11 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 public class XSDToJavaRunnerTest {
     @Rule public TemporaryFolder outputFolder = new TemporaryFolder();
@@ -57,4 +64,103 @@ public class XSDToJavaRunnerTest {
         
         assertThat(listener.getFirstError(), is(nullValue()));
     }
+
+    @Test
+    public void testLoadedSchemas() throws Exception {
+        final XJCErrorListener listener = new XJCErrorListener(new XJCBuildContext());
+
+        final String xjb = getClass().getResource("/schemas/wsdl/test.xjb").toExternalForm();
+        final String xsd = getClass().getResource("/schemas/wsdl/test.xsd").toExternalForm();
+        final String wsdlXsd = getClass().getResource("/schemas/configuration/wsdl.xsd").toExternalForm();
+        final String catalog = getClass().getResource("/schemas/configuration/catalog.cat").toExternalForm();
+
+        XSDToJavaRunner runner = new XSDToJavaRunner(
+            new String [] {
+                "-catalog", catalog,
+                "-b", xjb,
+                "-d", outputFolder.getRoot().getAbsolutePath(),
+                xsd 
+            }, 
+            listener, 
+            new File(xsd), 
+            new ArrayList<String>());
+        assertThat(runner.run(), is(0));
+
+        // the import is reported with the location the catalog resolved it to
+        assertThat(runner.getLoadedSchemas(), hasItems(xsd, wsdlXsd));
+    }
+
+    @Test
+    public void testParsedSchemasAreReused() throws Exception {
+        final String xjb = getClass().getResource("/schemas/wsdl/test.xjb").toExternalForm();
+        // the schema, its import and the binding file
+        assertParsedSchemasAreReused(3, "-b", xjb);
+    }
+
+    @Test
+    public void testParsedSchemasAreReusedWithoutBindings() throws Exception {
+        // XJC parses with XSOM directly when there are no binding files
+        assertParsedSchemasAreReused(2);
+    }
+
+    private void assertParsedSchemasAreReused(int documents, String... extraArgs) throws Exception {
+        final String xsd = getClass().getResource("/schemas/wsdl/test.xsd").toExternalForm();
+        final String catalog = getClass().getResource("/schemas/configuration/catalog.cat").toExternalForm();
+
+        List<List<String>> loaded = new ArrayList<>();
+        int hits = 0;
+        int misses = 0;
+        for (int x = 0; x < 2; x++) {
+            hits = SchemaDocumentCache.getHits();
+            misses = SchemaDocumentCache.getMisses();
+            List<String> args = new ArrayList<>(Arrays.asList("-catalog", catalog));
+            args.addAll(Arrays.asList(extraArgs));
+            args.addAll(Arrays.asList("-d", outputFolder.newFolder().getAbsolutePath(), xsd));
+            XSDToJavaRunner runner = new XSDToJavaRunner(args.toArray(new String[0]),
+                new XJCErrorListener(new XJCBuildContext()), new File(xsd), new ArrayList<String>());
+            assertThat(runner.run(), is(0));
+            loaded.add(runner.getLoadedSchemas());
+        }
+
+        // the second run replays all documents instead of parsing them
+        assertThat(SchemaDocumentCache.getMisses(), is(misses));
+        assertTrue(SchemaDocumentCache.getHits() - hits >= documents);
+        assertThat(loaded.get(1), is(loaded.get(0)));
+    }
+
+    @Test
+    public void testUnchangedFilesAreNotRewritten() throws Exception {
+        final String xsd = getClass().getResource("/schemas/configuration/wsdl.xsd").toExternalForm();
+        final String[] args = {"-d", outputFolder.getRoot().getAbsolutePath(), xsd};
+
+        XSDToJavaRunner runner = new XSDToJavaRunner(args, new XJCErrorListener(new XJCBuildContext()),
+                                                     new File(xsd), new ArrayList<String>());
+        assertThat(runner.run(), is(0));
+        assertThat(runner.unchangedCount, is(0));
+
+        // a file from an earlier run only differs in the time stamp of its header
+        File generated = new File(outputFolder.getRoot(), "org/xmlsoap/schemas/wsdl/ObjectFactory.java");
+        String content = new String(Files.readAllBytes(generated.toPath()), StandardCharsets.UTF_8);
+        Files.write(generated.toPath(), content.replaceFirst("// Generated on: .*", "// Generated on: 2001.09.09")
+                    .getBytes(StandardCharsets.UTF_8));
+        assertThat(generated.setLastModified(1000000000000L), is(true));
+
+        runner = new XSDToJavaRunner(args, new XJCErrorListener(new XJCBuildContext()),
+                                     new File(xsd), new ArrayList<String>());
+        assertThat(runner.run(), is(0));
+        assertThat(runner.unchangedCount, is(runner.fileCount));
+        assertThat(generated.lastModified(), is(1000000000000L));
+    }
+
+    @Test
+    public void testJobFile() throws Exception {
+        final File jobFile = outputFolder.newFile();
+        XSDToJavaRunner.writeJobs(jobFile, Arrays.asList(new String[] {"-d", "out 1", "a.xsd"},
+                                                         new String[] {"-extension", "b.xsd"}));
+
+        List<String[]> jobs = XSDToJavaRunner.readJobs(jobFile);
+        assertThat(jobs.size(), is(2));
+        assertThat(jobs.get(0), is(new String[] {"-d", "out 1", "a.xsd"}));
+        assertThat(jobs.get(1), is(new String[] {"-extension", "b.xsd"}));
+    }
 }
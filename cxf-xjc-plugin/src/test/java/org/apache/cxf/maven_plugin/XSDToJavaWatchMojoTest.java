@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven_plugin;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class XSDToJavaWatchMojoTest {
+    @Test
+    public void testAffected() {
+        Path schemas = Paths.get("/project/schemas").toAbsolutePath();
+        Set<Path> watched = new HashSet<>(Arrays.asList(schemas.resolve("a.xsd"), schemas.resolve("common.xsd"),
+                                                        Paths.get("/project/xsd").toAbsolutePath()));
+
+        assertTrue(XSDToJavaWatchMojo.isAffected(watched, Collections.singleton(schemas.resolve("common.xsd"))));
+        // a new schema in a watched xsdDir
+        assertTrue(XSDToJavaWatchMojo.isAffected(watched,
+            Collections.singleton(Paths.get("/project/xsd/new.xsd").toAbsolutePath())));
+        // lost events of the directory of a watched file
+        assertTrue(XSDToJavaWatchMojo.isAffected(watched, Collections.singleton(schemas)));
+        assertFalse(XSDToJavaWatchMojo.isAffected(watched, Collections.singleton(schemas.resolve("b.xsd"))));
+        assertFalse(XSDToJavaWatchMojo.isAffected(watched, Collections.<Path>emptySet()));
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.apache.cxf.xjc.dv;
 
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
@@ -26,6 +27,7 @@ import java.math.BigInteger;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 
@@ -36,6 +38,11 @@ import jakarta.xml.bind.Marshaller;
 import jakarta.xml.bind.annotation.XmlElement;
 import jakarta.xml.bind.annotation.adapters.HexBinaryAdapter;
 import org.apache.cxf.configuration.foo.Foo;
+import org.apache.cxf.configuration.foo_constants.FooConstants;
+import org.apache.cxf.configuration.foo_field.BarField;
+import org.apache.cxf.configuration.foo_field.DrivingDirection;
+import org.apache.cxf.configuration.foo_field.FooField;
+import org.apache.cxf.configuration.foo_lazy.Page;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -58,6 +65,114 @@ public class DefaultValueTest extends Assert {
         assertSchemaValid(foo);
     }
 
+    @Test
+    public void testConstantDefaultValues() throws Exception {
+        FooConstants foo = new FooConstants();
+
+        assertEquals(new BigInteger("11"), foo.getIntegerElem());
+        assertEquals(new BigDecimal("15"), foo.getDecimalElem());
+        assertEquals(new QName("http://www.w3.org/2001/XMLSchema", "string"), foo.getQnameElem());
+        assertArrayEquals(DatatypeConverter.parseBase64Binary("abcdefgh"), foo.getBase64BinaryElem());
+        assertArrayEquals(new HexBinaryAdapter().unmarshal("ffff"), foo.getHexBinaryElem());
+        assertEquals(3, foo.getDurationElem().getHours());
+        assertEquals("hello", foo.getStringElem());
+        assertEquals(new BigInteger("111"), foo.getIntegerAttr());
+        assertArrayEquals(new HexBinaryAdapter().unmarshal("aaaa"), foo.getHexBinaryAttr());
+        assertEquals(3, foo.getDurationAttr().getSeconds());
+
+        // the defaults are created once
+        FooConstants other = new FooConstants();
+        assertSame(foo.getIntegerElem(), other.getIntegerElem());
+        assertSame(foo.getDecimalElem(), other.getDecimalElem());
+        assertSame(foo.getQnameElem(), other.getQnameElem());
+        assertSame(foo.getDurationElem(), other.getDurationElem());
+        assertSame(foo.getIntegerAttr(), other.getIntegerAttr());
+        assertSame(foo.getDurationAttr(), other.getDurationAttr());
+
+        // arrays are copied, so callers cannot change the default
+        foo.getHexBinaryElem()[0] = 0;
+        assertArrayEquals(new HexBinaryAdapter().unmarshal("ffff"), other.getHexBinaryElem());
+        assertNotSame(foo.getBase64BinaryElem(), other.getBase64BinaryElem());
+
+        foo.setIntegerElem(BigInteger.ONE);
+        assertEquals(BigInteger.ONE, foo.getIntegerElem());
+    }
+
+    @Test
+    public void testLazyDefaultValues() throws Exception {
+        Page page = new Page();
+
+        // nothing is created before the getters are called
+        Field f = Page.class.getDeclaredField("pageColor");
+        f.setAccessible(true);
+        assertNull(f.get(page));
+
+        assertEquals("red", page.getPageColor().getBackground());
+        assertSame(page.getPageColor(), page.getPageColor());
+        assertSame(page.getPageColor(), f.get(page));
+        assertEquals("blue", page.getOptionalPageColor().getForeground());
+
+        String xml = "<page xmlns=\"http://cxf.apache.org/configuration/foo-lazy\">"
+            + "<pageColor><background>green</background></pageColor></page>";
+        page = JAXBContext.newInstance(Page.class).createUnmarshaller()
+            .unmarshal(new StreamSource(new StringReader(xml)), Page.class).getValue();
+        assertEquals("green", page.getPageColor().getBackground());
+        assertEquals("red", page.getOptionalPageColor().getBackground());
+    }
+
+    @Test
+    public void testFieldDefaultValues() throws Exception {
+        BarField bar = new BarField();
+        // the getters return the unboxed value field, the setters take the same type
+        assertEquals(int.class, BarField.class.getMethod("getIntElem").getReturnType());
+        assertEquals(boolean.class, BarField.class.getMethod("isBooleanElem").getReturnType());
+        assertEquals(int.class, BarField.class.getMethod("getIntAttr").getReturnType());
+        assertEquals(long.class, BarField.class.getMethod("getLongAttr").getReturnType());
+        assertNotNull(BarField.class.getMethod("setIntElem", int.class));
+        assertNotNull(BarField.class.getMethod("setIntAttr", int.class));
+        assertEquals(12, bar.getIntElem());
+        assertTrue(bar.isBooleanElem());
+        assertEquals("hello", bar.getStringElem());
+        assertEquals(new BigInteger("11"), bar.getIntegerElem());
+        assertEquals(DrivingDirection.LEFT_TURN, bar.getDriving());
+        assertArrayEquals(new HexBinaryAdapter().unmarshal("ffff"), bar.getHexBinaryElem());
+        assertEquals(112, bar.getIntAttr());
+        assertTrue(bar.isBooleanAttr());
+        assertEquals("hello", bar.getStringAttr());
+        assertEquals("schema", bar.getQnameAttr().getLocalPart());
+        assertEquals(113L, bar.getLongAttr());
+
+        // properties that are not set are not marshalled
+        JAXBContext context = JAXBContext.newInstance(FooField.class, BarField.class);
+        StringWriter writer = new StringWriter();
+        context.createMarshaller().marshal(new JAXBElement<>(new QName("urn:test", "bar"), BarField.class, bar),
+                                           writer);
+        assertFalse(writer.toString(), writer.toString().contains("Attr"));
+        assertFalse(writer.toString(), writer.toString().contains("Elem"));
+
+        bar.setIntElem(1);
+        bar.setStringAttr("world");
+        bar.setLongAttr(2L);
+        assertEquals(1, bar.getIntElem());
+        assertEquals("world", bar.getStringAttr());
+        assertEquals(2L, bar.getLongAttr());
+        bar.unsetIntElem();
+        bar.unsetStringAttr();
+        assertEquals(12, bar.getIntElem());
+        assertEquals("hello", bar.getStringAttr());
+
+        // unmarshalled values of the class and its superclass
+        String xml = "<f:barField xmlns:f=\"http://cxf.apache.org/configuration/foo-field\" f:intAttr=\"5\""
+            + " f:longAttr=\"6\"><f:intElem>7</f:intElem><f:driving>RightTurn</f:driving></f:barField>";
+        bar = context.createUnmarshaller().unmarshal(new StreamSource(new StringReader(xml)), BarField.class)
+            .getValue();
+        assertEquals(5, bar.getIntAttr());
+        assertEquals(6L, bar.getLongAttr());
+        assertEquals(7, bar.getIntElem());
+        assertEquals(DrivingDirection.RIGHT_TURN, bar.getDriving());
+        assertEquals("hello", bar.getStringElem());
+    }
+
     private void checkCXF3131(Foo foo) throws Exception {
         Field f = foo.getClass().getDeclaredField("point");
         assertNotNull(f.getAnnotation(XmlElement.class));
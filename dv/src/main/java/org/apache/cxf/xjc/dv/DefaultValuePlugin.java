@@ -20,10 +20,13 @@
 package org.apache.cxf.xjc.dv;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -45,8 +48,10 @@ import com.sun.codemodel.JExpr;
 import com.sun.codemodel.JExpression;
 import com.sun.codemodel.JFieldRef;
 import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JFormatter;
 import com.sun.codemodel.JInvocation;
 import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
 import com.sun.codemodel.JOp;
 import com.sun.codemodel.JTryBlock;
 import com.sun.codemodel.JType;
@@ -67,6 +72,8 @@ import com.sun.xml.xsom.XSType;
 import com.sun.xml.xsom.XmlString;
 
 import jakarta.xml.bind.DatatypeConverter;
+import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.annotation.XmlTransient;
 import jakarta.xml.bind.annotation.adapters.HexBinaryAdapter;
 
 /**
@@ -85,7 +92,21 @@ public class DefaultValuePlugin {
             )
         );
 
+    // Immutable or cloned types whose default values are created once with -Xdv:constants,
+    // in addition to enums
+    private static final Set<String> CONSTANT_TYPES = new HashSet<>(
+            Arrays.asList(
+                "java.math.BigInteger",
+                "java.math.BigDecimal",
+                "javax.xml.namespace.QName",
+                "byte[]"
+            )
+        );
+
     private boolean complexTypes;
+    private boolean constants;
+    private boolean lazy;
+    private boolean valueFields;
     private boolean active;
     
     public DefaultValuePlugin() {
@@ -99,7 +120,13 @@ public class DefaultValuePlugin {
         return   "  -Xdv                 : Initialize fields mapped from elements with their default values\n"
                + "  -Xdv:optional        : Initialize fields mapped from elements with their default values\n"
                + "                         for elements with minOccurs=0 but with complexTypes containing \n"
-               + "                         fields with default values.";
+               + "                         fields with default values.\n"
+               + "  -Xdv:constants       : Create default values that are expensive to create once, in static\n"
+               + "                         constants of the class, instead of in every call of the getter.\n"
+               + "  -Xdv:lazy            : Create the objects of the fields initialized for complexTypes in\n"
+               + "                         the first call of the getter instead of in the constructor.\n"
+               + "  -Xdv:field           : Keep the values of properties with simple default values in fields\n"
+               + "                         initialized with the default, so getters do not check for null.";
     }
 
     public int parseArgument(Options opt, String[] args, int index, com.sun.tools.xjc.Plugin plugin) 
@@ -111,6 +138,15 @@ public class DefaultValuePlugin {
             if (args[index].indexOf(":optional") != -1) {
                 complexTypes = true;
             }
+            if (args[index].indexOf(":constants") != -1) {
+                constants = true;
+            }
+            if (args[index].indexOf(":lazy") != -1) {
+                lazy = true;
+            }
+            if (args[index].indexOf(":field") != -1) {
+                valueFields = true;
+            }
             if (!opt.activePlugins.contains(plugin)) {
                 opt.activePlugins.add(plugin);
             }
@@ -119,59 +155,49 @@ public class DefaultValuePlugin {
         return ret;
     }
 
-    private boolean isAbstract(Outline outline, FieldOutline field) {
+    /**
+     * Indexes the classes of the outline by their implementation class, so the classes of the
+     * fields are found without scanning all classes for every field.
+     */
+    private static Map<JType, ClassOutline> indexClasses(Outline outline) {
+        Map<JType, ClassOutline> classes = new IdentityHashMap<>();
         for (ClassOutline classOutline : outline.getClasses()) {
-            if (classOutline.implClass == field.getRawType() 
-                && classOutline.implClass.isAbstract()) {
-                return true;
-            }
+            classes.put(classOutline.implClass, classOutline);
         }
-        return false;
+        return classes;
+    }
+
+    private boolean isAbstract(Map<JType, ClassOutline> classes, FieldOutline field) {
+        ClassOutline classOutline = classes.get(field.getRawType());
+        return classOutline != null && classOutline.implClass.isAbstract();
     }
     
-    private boolean containsDefaultValue(Outline outline, FieldOutline field) {
-        ClassOutline fClass = null;
-        for (ClassOutline classOutline : outline.getClasses()) {
-            if (classOutline.implClass == field.getRawType() 
-                && !classOutline.implClass.isAbstract()) {
-                fClass = classOutline;
-                break;
-            }
-        }
-        if (fClass == null) {
+    private boolean containsDefaultValue(Map<JType, ClassOutline> classes, Map<ClassOutline, Boolean> defaults,
+                                         FieldOutline field) {
+        ClassOutline fClass = classes.get(field.getRawType());
+        if (fClass == null || fClass.implClass.isAbstract()) {
             return false;
         }
-        for (FieldOutline f : fClass.getDeclaredFields()) {
-            if (f.getPropertyInfo().getSchemaComponent() instanceof XSParticle) {
-                XSParticle particle = (XSParticle)f.getPropertyInfo().getSchemaComponent();
-                XSTerm term = particle.getTerm();
-                if (term.isElementDecl() && term.asElementDecl().getDefaultValue() != null) {
-                    return true;
+        Boolean contains = defaults.get(fClass);
+        if (contains == null) {
+            contains = Boolean.FALSE;
+            for (FieldOutline f : fClass.getDeclaredFields()) {
+                if (f.getPropertyInfo().getSchemaComponent() instanceof XSParticle) {
+                    XSParticle particle = (XSParticle)f.getPropertyInfo().getSchemaComponent();
+                    XSTerm term = particle.getTerm();
+                    if (term.isElementDecl() && term.asElementDecl().getDefaultValue() != null) {
+                        contains = Boolean.TRUE;
+                        break;
+                    }
                 }
             }
+            defaults.put(fClass, contains);
         }
-        return false;
+        return contains;
     }
 
     private boolean isElementRequired(XSParticle particle) {
-        return particle != null && getMinOccurs(particle) != 0 && getMaxOccurs(particle) == 1;
-    }
-
-    private int getMinOccurs(XSParticle particle) {
-        try {
-            Number o = (Number)particle.getClass().getMethod("getMinOccurs").invoke(particle);
-            return o.intValue(); 
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
-    private int getMaxOccurs(XSParticle particle) {
-        try {
-            Number o = (Number)particle.getClass().getMethod("getMaxOccurs").invoke(particle);
-            return o.intValue(); 
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return particle != null && particle.getMinOccurs().intValue() != 0 && particle.getMaxOccurs().intValue() == 1;
     }
     
     public boolean run(Outline outline, Options opt, ErrorHandler errorHandler) {
@@ -179,6 +205,9 @@ public class DefaultValuePlugin {
             return true;
         }
         LOG.fine("Running default value plugin.");
+        Map<JType, ClassOutline> classes = indexClasses(outline);
+        Map<ClassOutline, Boolean> defaults = new IdentityHashMap<>();
+        Map<ClassOutline, JMethod> callbacks = new IdentityHashMap<>();
         for (ClassOutline co : outline.getClasses()) {
             for (FieldOutline f : co.getDeclaredFields()) {
 
@@ -210,8 +239,8 @@ public class DefaultValuePlugin {
 
                 if (xsType != null 
                     && xsType.isComplexType()
-                    && !isAbstract(outline, f)
-                    && ((complexTypes && containsDefaultValue(outline, f)) 
+                    && !isAbstract(classes, f)
+                    && ((complexTypes && containsDefaultValue(classes, defaults, f)) 
                         || isElementRequired(particle))) {
                     String varName = f.getPropertyInfo().getName(false);
                     JFieldVar var = co.implClass.fields().get(varName);
@@ -220,10 +249,10 @@ public class DefaultValuePlugin {
                         if (rawType instanceof JClass) {
                             final JClass jclazz = (JClass) rawType;
                             if (!jclazz.isAbstract() && !jclazz.isInterface()) {
-                                var.init(JExpr._new(rawType));
+                                initField(co, f, var, rawType);
                             }
                         } else {
-                            var.init(JExpr._new(rawType));
+                            initField(co, f, var, rawType);
                         }
                     }
                 }
@@ -247,7 +276,9 @@ public class DefaultValuePlugin {
                     
                     if (dvExpr != null) {
                         updateSetter(co, f, co.implClass);
-                        updateGetter(co, f, co.implClass, dvExpr, true);
+                        if (!valueFields || !addValueField(co, f, dvExpr, callbacks)) {
+                            updateGetter(co, f, co.implClass, toConstant(co.implClass, f, dvExpr), true);
+                        }
                     } else {
                         JType type = f.getRawType();
                         String typeName = type.fullName();
@@ -261,11 +292,14 @@ public class DefaultValuePlugin {
                     if ("javax.xml.datatype.Duration".equals(typeName)) {
                         updateDurationGetter(co, f, co.implClass, xmlDefaultValue, outline);
                     }
-                } else {
-                    updateGetter(co, f, co.implClass, dvExpr, false);                    
+                } else if (!valueFields
+                    || !addValueField(co, f, getDefaultValueExpression(f, co, outline, xsType, false,
+                                                                       xmlDefaultValue, true), callbacks)) {
+                    updateGetter(co, f, co.implClass, toConstant(co.implClass, f, dvExpr), false);                    
                 }
             }
         }
+        completeCallbacks(callbacks);
         
         for (PackageOutline po :outline.getAllPackageContexts()) {
             //also fixup some unecessary casts
@@ -307,6 +341,146 @@ public class DefaultValuePlugin {
     }
     
     
+    /**
+     * Initializes the field of a complexType with a new object, or with -Xdv:lazy makes the
+     * getter create it when it is first called, so objects replaced while unmarshalling or
+     * never read are not created.
+     */
+    private void initField(ClassOutline co, FieldOutline fo, JFieldVar var, JType type) {
+        String getterName = "get" + fo.getPropertyInfo().getName(true);
+        JMethod method = lazy ? co.implClass.getMethod(getterName, new JType[0]) : null;
+        if (method == null) {
+            var.init(JExpr._new(type));
+            return;
+        }
+        JDocComment doc = method.javadoc();
+        int mods = method.mods().getValue();
+        JType mtype = method.type();
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Updating getter: " + getterName);
+        }
+        // remove existing method and define new one
+        co.implClass.methods().remove(method);
+
+        method = co.implClass.method(mods, mtype, getterName);
+        method.javadoc().append(doc);
+
+        JFieldRef fr = JExpr.ref(var.name());
+        method.body()._if(JOp.eq(JExpr._null(), fr))._then().assign(fr, JExpr._new(type));
+        method.body()._return(fr);
+    }
+
+    /**
+     * With -Xdv:field, adds a field holding the value of the property that is initialized
+     * with the default value, so the getter only returns it.  The getter and the setter
+     * take the unboxed type, a property is reset to its default by its unset method.  The
+     * field bound by JAXB is kept and tells whether the property is set; the setter, the
+     * unset method and afterUnmarshal, as JAXB sets the bound field directly, update the
+     * value field.
+     */
+    private boolean addValueField(ClassOutline co, FieldOutline fo, JExpression dvExpr,
+                                  Map<ClassOutline, JMethod> callbacks) {
+        JDefinedClass dc = co.implClass;
+        JType type = fo.getRawType();
+        String name = fo.getPropertyInfo().getName(true);
+        JFieldVar var = dc.fields().get(fo.getPropertyInfo().getName(false));
+        String getterName = ("java.lang.Boolean".equals(type.fullName()) ? "is" : "get") + name;
+        JMethod getter = dc.getMethod(getterName, new JType[0]);
+        if (dvExpr == null || type.isArray() || var == null || getter == null) {
+            return false;
+        }
+        // the defaults are immutable, so all instances share them
+        dvExpr = createConstant(dc, fo, dvExpr);
+        JType vtype = type.unboxify();
+        String valueName = var.name() + "Value";
+        while (dc.fields().containsKey(valueName)) {
+            valueName += '_';
+        }
+        JFieldVar value = dc.field(JMod.PRIVATE, vtype, valueName, dvExpr);
+        value.annotate(XmlTransient.class);
+        if (vtype.isPrimitive()) {
+            updateSetter(co, fo, dc);
+        }
+
+        for (JMethod m : dc.methods()) {
+            if (m.name().equals("set" + name) && m.params().size() == 1) {
+                JVar param = m.params().get(0);
+                if (param.type().isPrimitive()) {
+                    m.body().assign(JExpr._this().ref(value), param);
+                } else {
+                    m.body().assign(JExpr._this().ref(value), JOp.cond(JOp.eq(JExpr._null(), param), dvExpr, param));
+                }
+            }
+        }
+        JMethod unset = dc.getMethod("unset" + name, new JType[0]);
+        if (unset != null) {
+            unset.body().assign(JExpr._this().ref(value), dvExpr);
+        }
+
+        JDocComment doc = getter.javadoc();
+        int mods = getter.mods().getValue();
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Updating getter: " + getterName);
+        }
+        // remove existing method and define new one
+        dc.methods().remove(getter);
+        getter = dc.method(mods, vtype, getterName);
+        getter.javadoc().append(doc);
+        getter.body()._return(value);
+
+        JMethod callback = callbacks.get(co);
+        if (callback == null) {
+            // a callback added by a binding or another plugin gets the assignments as well
+            callback = dc.getMethod("afterUnmarshal", getCallbackTypes(dc));
+            if (callback == null) {
+                callback = dc.method(JMod.PROTECTED, void.class, "afterUnmarshal");
+                callback.param(Unmarshaller.class, "unmarshaller");
+                callback.param(Object.class, "parent");
+                callback.javadoc().append("Sets the values of the properties that were unmarshalled.");
+            }
+            callbacks.put(co, callback);
+        }
+        callback.body()._if(JOp.ne(JExpr._null(), var))._then().assign(JExpr._this().ref(value), var);
+        return true;
+    }
+
+    private static JType[] getCallbackTypes(JDefinedClass dc) {
+        return new JType[] {dc.owner().ref(Unmarshaller.class), dc.owner().ref(Object.class)};
+    }
+
+    /**
+     * Moves the afterUnmarshal callbacks to the end of their classes.  JAXB only calls the
+     * callback of the most derived class, so the callbacks of subclasses call the one of
+     * their superclass first, unless they already do.
+     */
+    private static void completeCallbacks(Map<ClassOutline, JMethod> callbacks) {
+        for (Map.Entry<ClassOutline, JMethod> entry : callbacks.entrySet()) {
+            JDefinedClass dc = entry.getKey().implClass;
+            JMethod callback = entry.getValue();
+            dc.methods().remove(callback);
+            dc.methods().add(callback);
+
+            ClassOutline superClass = entry.getKey().getSuperClass();
+            while (superClass != null
+                && superClass.implClass.getMethod("afterUnmarshal", getCallbackTypes(dc)) == null) {
+                superClass = superClass.getSuperClass();
+            }
+            if (superClass != null && !callsSuper(callback)) {
+                JBlock body = callback.body();
+                int end = body.pos(0);
+                body.invoke(JExpr._super(), callback).arg(callback.params().get(0)).arg(callback.params().get(1));
+                body.pos(end + 1);
+            }
+        }
+    }
+
+    private static boolean callsSuper(JMethod callback) {
+        StringWriter writer = new StringWriter();
+        callback.body().state(new JFormatter(writer));
+        return writer.toString().contains("super." + callback.name() + "(");
+    }
+
     private void updateDurationGetter(ClassOutline co, FieldOutline fo, JDefinedClass dc,
                                       XmlString xmlDefaultValue, Outline outline) {
         String fieldName = fo.getPropertyInfo().getName(false);
@@ -329,7 +503,19 @@ public class DefaultValuePlugin {
         method.javadoc().append(doc);
 
         JFieldRef fr = JExpr.ref(fieldName);
-        if (xmlDefaultValue != null) {
+        if (xmlDefaultValue != null && constants) {
+            // the factory is looked up once, when the class is initialized
+            JFieldVar constant = dc.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, mtype, getConstantName(dc, fo));
+            JBlock init = dc.init();
+            JVar value = init.decl(mtype, "default" + fo.getPropertyInfo().getName(true), JExpr._null());
+            JTryBlock b = init._try();
+            b.body().assign(value, outline.getCodeModel().ref(DatatypeFactory.class)
+                .staticInvoke("newInstance").invoke("newDuration").arg(JExpr.lit(xmlDefaultValue.value)));
+            b._catch(outline.getCodeModel().ref(DatatypeConfigurationException.class));
+            init.assign(constant, value);
+            method.body()._if(JOp.eq(JExpr._null(), fr))._then()._return(constant);
+            method.body()._return(fr);
+        } else if (xmlDefaultValue != null) {
             JExpression test = JOp.eq(JExpr._null(), fr);
             JConditional jc =  method.body()._if(test);
             JTryBlock b = jc._then()._try();
@@ -343,6 +529,45 @@ public class DefaultValuePlugin {
 
     }
 
+    /**
+     * With -Xdv:constants, moves a default value that is expensive to create to a static
+     * constant of the class and returns the expression the getter returns instead.  Arrays
+     * are cloned, so callers cannot modify the constant.
+     */
+    private JExpression toConstant(JDefinedClass dc, FieldOutline fo, JExpression dvExpr) {
+        return constants ? createConstant(dc, fo, dvExpr) : dvExpr;
+    }
+
+    private static JExpression createConstant(JDefinedClass dc, FieldOutline fo, JExpression dvExpr) {
+        JType type = fo.getRawType();
+        if (!CONSTANT_TYPES.contains(type.fullName())
+            && !(type instanceof JDefinedClass && ((JDefinedClass)type).getClassType() == ClassType.ENUM)) {
+            return dvExpr;
+        }
+        JFieldVar constant = dc.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, type,
+                                      getConstantName(dc, fo), dvExpr);
+        if (type.isArray()) {
+            return constant.invoke("clone");
+        }
+        return constant;
+    }
+
+    private static String getConstantName(JDefinedClass dc, FieldOutline fo) {
+        String propertyName = fo.getPropertyInfo().getName(true);
+        StringBuilder b = new StringBuilder("DEFAULT");
+        for (int x = 0; x < propertyName.length(); x++) {
+            char c = propertyName.charAt(x);
+            if (x == 0 || Character.isUpperCase(c) && !Character.isUpperCase(propertyName.charAt(x - 1))) {
+                b.append('_');
+            }
+            b.append(Character.toUpperCase(c));
+        }
+        while (dc.fields().containsKey(b.toString())) {
+            b.append('_');
+        }
+        return b.toString();
+    }
+
     JExpression getDefaultValueExpression(FieldOutline f,
                                           ClassOutline co,
                                           Outline outline,
@@ -488,6 +713,10 @@ public class DefaultValuePlugin {
         JType mtype = method.type();
         String setterName = "set" + fo.getPropertyInfo().getName(true);
         method = dc.getMethod(setterName, new JType[] {mtype});
+        if (method == null && mtype.isPrimitive()) {
+            // XJC unboxes the getters of attributes with a default, but not their setters
+            method = dc.getMethod(setterName, new JType[] {mtype.boxify()});
+        }
         if (LOG.isLoggable(Level.FINE)) {
             LOG.fine("Updating setter: " + setterName);
         }